@@ -66,10 +66,9 @@ public class BloodMonitorActions extends BiometricMonitorActions {
                         Biometric biometric = new Biometric(observationCode, selectedPatientId, selectedGivenName, selectedFamilyName);
                         BiometricTextMonitor monitor = this.view.getBloodTextMonitor();
                         biometric.attach(monitor);
-                        monitor.setObservation(biometric);
                         getStorage().storeBloodBiometric(observationCode + "," + selectedPatientId, biometric);
                         // Create blank monitor row in table in view with only patient name
-                        getView().addMonitorTemplate(observationName, selectedGivenName + selectedFamilyName, selectedPatientId);
+                        getView().addMonitorTemplate(observationName, biometric);
                         
                         // If this is the only monitor in the table, initialise the default scheduler which will fill the monitor with measurement data.
                         if (!getMonitorTasksManager().hasScheduledUpdate()){
@@ -108,6 +107,10 @@ public class BloodMonitorActions extends BiometricMonitorActions {
             getView().removeBloodTableRow(row);
             // Remove observation and observer
             String code = getObservationCodes().getCode(observationName.BLOOD.name());
+            Biometric biometric = getStorage().getBloodBiometric(code + "," + patientId);
+            if (biometric != null) {
+                biometric.detach(getView().getBloodTextMonitor());
+            }
             getStorage().removeBloodBiometric(code + "," + patientId);
 
             if (!getStorage().hasMonitors()){
@@ -135,6 +138,8 @@ public class BloodMonitorActions extends BiometricMonitorActions {
                 getStorage().setSystolicThreshold(systolicThresholdInt);
                 getStorage().setDiastolicThreshold(diastolicThresholdInt);
                 getView().updateBloodOverThreshold(systolicThresholdInt, diastolicThresholdInt);
+                // Patients who were stable under the old thresholds may need attention under the new ones
+                getMonitorTasksManager().resetAdaptivePolling();
             }
             else {
                 // Reset both thresholds in the user input back to the default value.
@@ -66,11 +66,10 @@ public class CholesterolMonitorActions extends BiometricMonitorActions {
                         Biometric biometric = new Biometric(observationCode, selectedPatientId, selectedGivenName, selectedFamilyName);
                         BiometricTextMonitor textMonitor = this.view.getCholesterolTextMonitor();
                         biometric.attach(textMonitor);
-                        textMonitor.setObservation(biometric);
                         
                         getStorage().storeCholesterolBiometric(observationCode + "," + selectedPatientId, biometric);
                         // Create blank monitor row in table in view with only patient name
-                        getView().addMonitorTemplate(observationName, selectedGivenName + selectedFamilyName, selectedPatientId);
+                        getView().addMonitorTemplate(observationName, biometric);
                         
                         // If this is the only monitor in the table, initialise the default scheduler which will fill the monitor with measurement data.
                         // This also updates any associated graphs.
@@ -115,6 +114,10 @@ public class CholesterolMonitorActions extends BiometricMonitorActions {
             getView().removeCholesterolTableRow(row);
             // Remove observation and observer
             String code = getObservationCodes().getCode(observationName.CHOLESTEROL.name());
+            Biometric biometric = getStorage().getCholesterolBiometric(code + "," + patientId);
+            if (biometric != null) {
+                biometric.detach(getView().getCholesterolTextMonitor());
+            }
             getStorage().removeCholesterolBiometric(code + "," + patientId);
             if (!getStorage().hasMonitors()){
                 if (getMonitorTasksManager().hasScheduledUpdate()) {
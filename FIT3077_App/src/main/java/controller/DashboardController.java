@@ -2,12 +2,19 @@ package controller;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.JButton;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 import model.DashboardModel;
 import model.ObservationCodes;
 import model.ObservationName;
 import model.ObserveStorage;
 import monitor_tasks.MonitorTasksManager;
+import scheduler.SchedulerPool;
 import view.DashboardView;
 
 /**
@@ -34,7 +41,7 @@ public class DashboardController {
         this.view = view;
         this.model = model;
         this.storage = storage;
-        this.monitorTasksManager = new MonitorTasksManager(this.storage, this.view);
+        this.monitorTasksManager = new MonitorTasksManager(this.storage, this.view, this.model.getRequestHandler());
         this.cholesterolActions = new CholesterolMonitorActions(this.view, this.model, this.storage, this.monitorTasksManager);
         this.bloodActions = new BloodMonitorActions(this.view, this.model, this.storage, this.monitorTasksManager);
         initController();
@@ -109,6 +116,34 @@ public class DashboardController {
                 getBloodActions().updateThresholdAction();
             }
         }); 
+        
+        // Show the history of the selected cholesterol patient
+        getView().getCholesterolTable().getSelectionModel().addListSelectionListener(new ListSelectionListener(){
+            public void valueChanged(ListSelectionEvent e){
+                if (!e.getValueIsAdjusting()) {
+                    getView().showCholesterolHistory(getView().getCholesterolTableSelectedRow());
+                }
+            }
+        });
+        
+        // Show the history of the selected blood pressure patient
+        getView().getBloodTable().getSelectionModel().addListSelectionListener(new ListSelectionListener(){
+            public void valueChanged(ListSelectionEvent e){
+                if (!e.getValueIsAdjusting()) {
+                    getView().showBloodHistory(getView().getBloodTableSelectedRow());
+                }
+            }
+        });
+        
+        // Stop scheduled updates and release the scheduler threads when the session ends
+        getView().addWindowListener(new WindowAdapter(){
+            @Override
+            public void windowClosing(WindowEvent e){
+                getMonitorTasksManager().shutdown();
+                SchedulerPool.shutdown();
+                Logger.getLogger(DashboardController.class.getName()).log(Level.INFO, "HTTP client: {0}", getMonitorTasksManager().getRequestHandler().getHttpMetrics());
+            }
+        });
     }
     
     /**
@@ -101,7 +101,7 @@ public class LoginController{
      */
     private void loginSuccess(Practitioner practitioner){
         // Create dashboard model
-        DashboardModel dashboardModel = new DashboardModel(practitioner);
+        DashboardModel dashboardModel = new DashboardModel(practitioner, getModel().getRequestHandler());
         // Create observe storage
         ObserveStorage storage = new ObserveStorage();
         // Create dashboard view
@@ -0,0 +1,31 @@
+package deserialisation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data class representing a FHIR batch Bundle which is serialised using GSON and posted to the FHIR server, so that several
+ * searches can be executed in a single HTTP round trip.
+ * @author Bryan
+ */
+public class BatchRequestBundle {
+    private String resourceType = "Bundle";
+    private String type = "batch";
+    private List<BatchRequestEntry> entry = new ArrayList();
+    
+    /**
+     * Adds a GET request to the batch.
+     * @param url String - URL relative to the root URL of the FHIR server e.g. "Observation?patient=1&code=2093-3".
+     */
+    public void addGetRequest(String url){
+        this.entry.add(new BatchRequestEntry("GET", url));
+    }
+    
+    /**
+     * Gets the number of requests in the batch.
+     * @return Integer
+     */
+    public Integer size(){
+        return this.entry.size();
+    }
+}
@@ -0,0 +1,22 @@
+package deserialisation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data class representing a single request within a FHIR batch Bundle, serialised using GSON.
+ * @author Bryan
+ */
+public class BatchRequestEntry {
+    private Map<String, String> request = new ConcurrentHashMap();
+    
+    /**
+     * Constructor for BatchRequestEntry.
+     * @param method String - HTTP method e.g. "GET".
+     * @param url String - URL relative to the root URL of the FHIR server.
+     */
+    public BatchRequestEntry(String method, String url){
+        this.request.put("method", method);
+        this.request.put("url", url);
+    }
+}
@@ -0,0 +1,27 @@
+package deserialisation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data class storing a deserialised FHIR batch-response Bundle using GSON. The entries of the response are in the same order as
+ * the requests of the BatchRequestBundle which was posted.
+ * @author Bryan
+ */
+public class BatchResponse {
+    private List<BatchResponseEntry> entry;
+    
+    /**
+     * Gets the observation search results in the same order as the requests of the batch.
+     * @return List<ObservationResponse> - an element is null if that search failed on the server.
+     */
+    public List<ObservationResponse> getObservationResponses(){
+        List<ObservationResponse> responses = new ArrayList();
+        if (this.entry != null) {
+            for (BatchResponseEntry entryItem : this.entry) {
+                responses.add(entryItem.getObservationResponse());
+            }
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,17 @@
+package deserialisation;
+
+/**
+ * Data class storing the deserialised result of a single search within a FHIR batch-response Bundle using GSON.
+ * @author Bryan
+ */
+public class BatchResponseEntry {
+    private ObservationResponse resource;
+    
+    /**
+     * Gets the observation search result of this entry.
+     * @return ObservationResponse - null if the search failed on the server.
+     */
+    public ObservationResponse getObservationResponse(){
+        return this.resource;
+    }
+}
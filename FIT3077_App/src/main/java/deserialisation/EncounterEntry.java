@@ -1,13 +1,42 @@
 package deserialisation;
 
+import model.Patient;
+
 /**
- * Data class storing deserialised details of an encounter; i.e. a consultation 
- * with a health practitioner using GSON.
+ * Data class storing deserialised details of an entry of an encounter search using GSON. An entry is either an encounter, i.e. a
+ * consultation with a health practitioner, or a Patient resource included in the search results with _include=Encounter.patient.
  * 
  * @author Bryan
  */
 public class EncounterEntry {
     private EncounterResource resource;
+    private Patient patient;
+    
+    /**
+     * Constructor for EncounterEntry.
+     * @param resource EncounterResource - the encounter, or null if the entry is not an Encounter resource.
+     * @param patient Patient - the included patient, or null if the entry is not a Patient resource.
+     */
+    public EncounterEntry(EncounterResource resource, Patient patient) {
+        this.resource = resource;
+        this.patient = patient;
+    }
+    
+    /**
+     * Checks if this entry is an Encounter resource.
+     * @return Boolean
+     */
+    public Boolean isEncounter() {
+        return (this.resource != null);
+    }
+    
+    /**
+     * Checks if this entry is an included Patient resource.
+     * @return Boolean
+     */
+    public Boolean isPatient() {
+        return (this.patient != null);
+    }
     
     /**
      * Return a patient's Id from this entry's associated EncounterResource.
@@ -17,4 +46,13 @@ public class EncounterEntry {
     public String getPatientId() {
         return this.resource.getReference().split("/")[1];
     }
+    
+    /**
+     * Return the Patient resource of this entry.
+     * 
+     * @return Patient - The included patient, or null if this entry is not a Patient resource
+     */
+    public Patient getPatient() {
+        return this.patient;
+    }
 }
@@ -0,0 +1,139 @@
+package deserialisation;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import model.Patient;
+
+/**
+ * EncounterEntryAdapterFactory creates the GSON type adapter for the entries of an encounter search Bundle. Besides the Encounter resources
+ * themselves, the Bundle contains the resources requested with _include (e.g. the Patient of each encounter), so each entry is deserialised
+ * according to its resource type.
+ * The type is taken from the entry's "fullUrl" (e.g. ".../Patient/123"), which the server writes before the resource, so the resource is
+ * read straight from the stream by the adapter of its class. Only an entry without a preceding "fullUrl" is read into a JSON tree first to
+ * look up its "resourceType".
+ * @author Bryan
+ */
+public class EncounterEntryAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != EncounterEntry.class) {
+            return null;
+        }
+        return (TypeAdapter<T>) new EncounterEntryAdapter(gson.getAdapter(EncounterResource.class), gson.getAdapter(Patient.class),
+                gson.getAdapter(JsonElement.class));
+    }
+    
+    /**
+     * Gets the resource type from the "fullUrl" of an entry, i.e. the path segment before the resource's id.
+     * @param fullUrl String - e.g. "https://fhir.monash.edu/hapi-fhir-jpaserver/fhir/Patient/123".
+     * @return String - the resource type, or null if the URL has no such segment (e.g. a "urn:uuid:" URL or a versioned URL).
+     */
+    static String getResourceType(String fullUrl) {
+        if (fullUrl == null) {
+            return null;
+        }
+        String[] segments = fullUrl.split("/");
+        if (segments.length < 2) {
+            return null;
+        }
+        String resourceType = segments[segments.length - 2];
+        // Resource types are capitalised, unlike other segments such as "_history"
+        if (resourceType.isEmpty() || !Character.isUpperCase(resourceType.charAt(0))) {
+            return null;
+        }
+        return resourceType;
+    }
+    
+    /**
+     * Type adapter reading an EncounterEntry without building a JSON tree of the entry.
+     */
+    private static class EncounterEntryAdapter extends TypeAdapter<EncounterEntry> {
+        private final TypeAdapter<EncounterResource> encounterAdapter;
+        private final TypeAdapter<Patient> patientAdapter;
+        private final TypeAdapter<JsonElement> treeAdapter;
+        
+        /**
+         * Constructor for EncounterEntryAdapter.
+         * @param encounterAdapter TypeAdapter<EncounterResource> - adapter for Encounter resources.
+         * @param patientAdapter TypeAdapter<Patient> - adapter for Patient resources.
+         * @param treeAdapter TypeAdapter<JsonElement> - adapter for resources whose type is not known before they are read.
+         */
+        EncounterEntryAdapter(TypeAdapter<EncounterResource> encounterAdapter, TypeAdapter<Patient> patientAdapter,
+                TypeAdapter<JsonElement> treeAdapter) {
+            this.encounterAdapter = encounterAdapter;
+            this.patientAdapter = patientAdapter;
+            this.treeAdapter = treeAdapter;
+        }
+        
+        @Override
+        public EncounterEntry read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String fullUrl = null;
+            EncounterEntry entry = new EncounterEntry(null, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("fullUrl") && in.peek() == JsonToken.STRING) {
+                    fullUrl = in.nextString();
+                } else if (name.equals("resource") && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    entry = readResource(in, getResourceType(fullUrl));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return entry;
+        }
+        
+        /**
+         * Reads the resource of an entry with the adapter of its type.
+         * @param in JsonReader - reader positioned at the resource.
+         * @param resourceType String - type of the resource, or null if it is not known yet.
+         * @return EncounterEntry - the entry of the resource, which is empty if the resource is not used.
+         * @throws IOException if the resource cannot be read.
+         */
+        private EncounterEntry readResource(JsonReader in, String resourceType) throws IOException {
+            if ("Encounter".equals(resourceType)) {
+                return new EncounterEntry(encounterAdapter.read(in), null);
+            }
+            if ("Patient".equals(resourceType)) {
+                return new EncounterEntry(null, patientAdapter.read(in));
+            }
+            if (resourceType != null) {
+                // Other included resources (e.g. Practitioner) are not used
+                in.skipValue();
+                return new EncounterEntry(null, null);
+            }
+            JsonObject resource = treeAdapter.read(in).getAsJsonObject();
+            if (!resource.has("resourceType")) {
+                return new EncounterEntry(null, null);
+            }
+            resourceType = resource.get("resourceType").getAsString();
+            if (resourceType.equals("Encounter")) {
+                return new EncounterEntry(encounterAdapter.fromJsonTree(resource), null);
+            }
+            if (resourceType.equals("Patient")) {
+                return new EncounterEntry(null, patientAdapter.fromJsonTree(resource));
+            }
+            return new EncounterEntry(null, null);
+        }
+        
+        @Override
+        public void write(JsonWriter out, EncounterEntry value) throws IOException {
+            throw new UnsupportedOperationException("Encounter entries are only read from server responses");
+        }
+    }
+}
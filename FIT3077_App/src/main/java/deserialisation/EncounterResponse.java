@@ -1,11 +1,15 @@
 package deserialisation;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import model.Patient;
 
 /**
  * A class providing a method to obtain all unique patient identifiers by 
  * iterating through a list attribute of EncounterEntry instances using GSON.
+ * It also provides the Patient resources included in the search results, so
+ * that patients do not have to be requested one at a time.
  * 
  * @author Bryan
  */
@@ -25,13 +29,34 @@ public class EncounterResponse {
         // the same practitioner multiple times. Therefore, encounters may have 
         // duplicate patients.
         // Get the IDs of all of the practitioner's patients
-        for (EncounterEntry entryElement : entry) {
-            String patientId = entryElement.getPatientId();
-            patientIds.add(patientId);
+        if (entry != null) {
+            for (EncounterEntry entryElement : entry) {
+                if (entryElement.isEncounter()) {
+                    String patientId = entryElement.getPatientId();
+                    patientIds.add(patientId);
+                }
+            }
         }
         return patientIds;
     }
     
+    /**
+     * Adds the Patient resources included in this page of search results to a given map.
+     * 
+     * @param patients Map<String, Patient> - <patientId, Patient> to add the included patients to.
+     * @return Map<String, Patient> - the given map.
+     */
+    public Map<String, Patient> getIncludedPatients(Map<String, Patient> patients) {
+        if (entry != null) {
+            for (EncounterEntry entryElement : entry) {
+                if (entryElement.isPatient()) {
+                    patients.put(entryElement.getPatient().getId(), entryElement.getPatient());
+                }
+            }
+        }
+        return patients;
+    }
+    
     /**
      * Checks if there is a next page of search results by iterating through the "link" list in the FHIR resource.
      * @return Boolean - True if there is a next page, False if there is not
@@ -1,14 +1,12 @@
 package deserialisation;
 
-import java.util.Map;
-
 /**
  * Class storing the deserialised observation component deserialised using GSON.
  * @author Bryan
  */
 public class ObservationComponent {
     private ComponentCode code;
-    private Map<String, String> valueQuantity;
+    private ValueQuantity valueQuantity;
     
     /**
      * Gets observation name from code attribute.
@@ -20,17 +18,17 @@ public class ObservationComponent {
     
     /**
      * Gets quantity value from valueQuantity attribute.
-     * @return Map<String, String> - value, unit, system, and code from valueQuantity part of JSON response.
+     * @return double - value from valueQuantity part of JSON response.
      */
-    public String getQuantity(){
-        return this.valueQuantity.get("value");
+    public double getQuantity(){
+        return this.valueQuantity.getValue();
     }
     
     /**
      * Gets unit from valueQuantity attribute.
-     * @return Map<String, String> - value, unit, system, and code from valueQuantity part of JSON response.
+     * @return String - unit from valueQuantity part of JSON response.
      */
     public String getUnit(){
-        return this.valueQuantity.get("unit");
+        return this.valueQuantity.getUnit();
     }
 }
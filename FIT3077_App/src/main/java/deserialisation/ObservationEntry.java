@@ -14,9 +14,9 @@ public class ObservationEntry {
     
     /**
      * Gets quantity
-     * @return String
+     * @return double
      */
-    public String getQuantity(){
+    public double getQuantity(){
         return this.resource.getQuantity();
     }
     
@@ -36,6 +36,30 @@ public class ObservationEntry {
         return this.resource.getTime();
     }
     
+    /**
+     * Gets patient ID
+     * @return String
+     */
+    public String getPatientId(){
+        return this.resource.getPatientId();
+    }
+    
+    /**
+     * Gets the instant at which the observation was last changed on the FHIR server.
+     * @return String
+     */
+    public String getLastUpdated(){
+        return this.resource.getLastUpdated();
+    }
+    
+    /**
+     * Gets the components of the entry resource e.g. systolic and diastolic components.
+     * @return List<ObservationComponent>
+     */
+    public List<ObservationComponent> getComponents(){
+        return this.resource.getComponents();
+    }
+    
     /**
      * Gets component measurements from entry resource.
      * @return 
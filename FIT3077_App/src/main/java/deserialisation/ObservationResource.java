@@ -16,15 +16,17 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class ObservationResource {
     private String effectiveDateTime;
-    private Map<String, String> valueQuantity;
+    private ResourceMeta meta;
+    private Map<String, String> subject;
+    private ValueQuantity valueQuantity;
     private List<ObservationComponent> component;
     
     /**
      * Gets quantity from valueQuantity
-     * @return String
+     * @return double
      */
-    public String getQuantity(){
-        return valueQuantity.get("value");
+    public double getQuantity(){
+        return valueQuantity.getValue();
     }
     
     /**
@@ -32,7 +34,7 @@ public class ObservationResource {
      * @return String
      */
     public String getUnit(){
-        return  valueQuantity.get("unit");
+        return  valueQuantity.getUnit();
     }
     
     /**
@@ -43,6 +45,33 @@ public class ObservationResource {
         return effectiveDateTime;
     }
     
+    /**
+     * Gets the ID of the patient the observation belongs to, from the subject reference e.g. "Patient/123".
+     * @return String
+     */
+    public String getPatientId(){
+        return subject.get("reference").split("/")[1];
+    }
+    
+    /**
+     * Gets the instant at which the observation was last changed on the FHIR server.
+     * @return String - null if the server did not return it.
+     */
+    public String getLastUpdated(){
+        if (meta == null) {
+            return null;
+        }
+        return meta.getLastUpdated();
+    }
+    
+    /**
+     * Gets the components of the observation e.g. the systolic and diastolic components of a blood pressure observation.
+     * @return List<ObservationComponent>
+     */
+    public List<ObservationComponent> getComponents(){
+        return component;
+    }
+    
     /**
      * Gets list of component measurements.
      * @return List<Map<String, String>> - A list of a map of component measurements where the key is the component name (e.g. systolic), and the value is the quantity measured.
@@ -52,7 +81,7 @@ public class ObservationResource {
         for (Integer i = 0; i < component.size(); i++) {
             Map<String, String> map = new ConcurrentHashMap();
             map.put("name", component.get(i).getObservationName());
-            map.put("qty", component.get(i).getQuantity());
+            map.put("qty", String.valueOf(component.get(i).getQuantity()));
             map.put("unit", component.get(i).getUnit());
             measurements.add(map);
         }
@@ -1,8 +1,10 @@
 package deserialisation;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import model.Biometric;
 
 /**
  * A data class storing deserialised measurement JSON response data in the form of an 
@@ -12,13 +14,56 @@ import java.util.Map;
  */
 public class ObservationResponse {
     private Integer total;
+    private List<EncounterLink> link;
     private List<ObservationEntry> entry;
+    private transient Boolean notModified = false;
+    private transient Boolean stale = false;
+    
+    /**
+     * Creates a response representing an observation which has not changed since it was last requested (HTTP 304). It has no entries.
+     * @return ObservationResponse
+     */
+    public static ObservationResponse notModified(){
+        ObservationResponse response = new ObservationResponse();
+        response.notModified = true;
+        return response;
+    }
+    
+    /**
+     * Creates a copy of a previous response to be used while the FHIR server cannot be reached. It has the same entries, but is marked as stale.
+     * @param known ObservationResponse - last successful response to the same request.
+     * @return ObservationResponse
+     */
+    public static ObservationResponse stale(ObservationResponse known){
+        ObservationResponse response = new ObservationResponse();
+        response.total = known.total;
+        response.link = known.link;
+        response.entry = known.entry;
+        response.stale = true;
+        return response;
+    }
+    
+    /**
+     * Checks if the observation has not changed since it was last requested, in which case there is nothing to update.
+     * @return Boolean
+     */
+    public Boolean isNotModified(){
+        return this.notModified;
+    }
+    
+    /**
+     * Checks if this is a previous response served because the FHIR server could not be reached, so it may be out of date.
+     * @return Boolean
+     */
+    public Boolean isStale(){
+        return this.stale;
+    }
     
     /**
      * Gets quantity of observation from entry
-     * @return String
+     * @return double
      */
-    public String getQuantity(){
+    public double getQuantity(){
         return this.entry.get(0).getQuantity();
     }
     
@@ -30,6 +75,33 @@ public class ObservationResponse {
         return  this.entry.get(0).getUnit();
     }
     
+    /**
+     * Checks if the response contains at least one observation entry.
+     * @return Boolean - True if there is an entry, False if not
+     */
+    public Boolean hasEntry(){
+        return (this.entry != null && !this.entry.isEmpty());
+    }
+
+    /**
+     * Gets the most recent entry. Observations are requested sorted by descending date, so this is the first entry.
+     * @return ObservationEntry
+     */
+    public ObservationEntry getLatestEntry(){
+        return this.entry.get(0);
+    }
+
+    /**
+     * Gets all entries, most recent first when observations are requested sorted by descending date.
+     * @return List<ObservationEntry> - empty if there are no entries.
+     */
+    public List<ObservationEntry> getEntries(){
+        if (this.entry == null) {
+            return new ArrayList();
+        }
+        return this.entry;
+    }
+
     /**
      * Gets time of observation from entry
      * @return String
@@ -61,4 +133,63 @@ public class ObservationResponse {
         }
         return measurements;
     }
+    
+    /**
+     * Gets the most recent entry of each patient in the response, based on the effective date-time of the observations.
+     * @return Map<String, ObservationEntry> - <patientId, latest entry>
+     */
+    public Map<String, ObservationEntry> getLatestEntryByPatient(){
+        Map<String, ObservationEntry> latest = new HashMap();
+        if (hasEntry()) {
+            for (ObservationEntry entryItem : this.entry) {
+                ObservationEntry current = latest.get(entryItem.getPatientId());
+                // Compared as instants, as the date-times may have different UTC offsets or fractional second precision
+                if (current == null || Biometric.toInstant(entryItem.getTime()).isAfter(Biometric.toInstant(current.getTime()))) {
+                    latest.put(entryItem.getPatientId(), entryItem);
+                }
+            }
+        }
+        return latest;
+    }
+    
+    /**
+     * Gets the latest "last updated" instant of all entries in the response. Instants are compared as such, not as strings, as they may have
+     * different UTC offsets or fractional second precision.
+     * @return String - the "last updated" instant as given by the FHIR server, or null if there are no entries.
+     */
+    public String getMaxLastUpdated(){
+        String max = null;
+        if (hasEntry()) {
+            for (ObservationEntry entryItem : this.entry) {
+                String lastUpdated = entryItem.getLastUpdated();
+                if (lastUpdated != null && (max == null || Biometric.toInstant(lastUpdated).isAfter(Biometric.toInstant(max)))) {
+                    max = lastUpdated;
+                }
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * Checks if there is a next page of search results by iterating through the "link" list in the FHIR resource.
+     * @return Boolean - True if there is a next page, False if there is not
+     */
+    public Boolean hasNextPage() {
+        return (getNextPage() != null);
+    }
+    
+    /**
+     * Gets the URL of the next page of search results by iterating through the "link" list in the FHIR resource.
+     * @return String - URL
+     */
+    public String getNextPage() {
+        if (this.link != null) {
+            for (EncounterLink item : this.link) {
+                if (item.getRelation().equals("next")) {
+                    return item.getUrl();
+                }
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,17 @@
+package deserialisation;
+
+/**
+ * Data class storing the deserialised "meta" element of a FHIR resource using GSON.
+ * @author Bryan
+ */
+public class ResourceMeta {
+    private String lastUpdated;
+    
+    /**
+     * Gets the instant at which the resource was last changed on the FHIR server.
+     * @return String - e.g. "2020-05-14T10:35:12.541+00:00"
+     */
+    public String getLastUpdated(){
+        return this.lastUpdated;
+    }
+}
@@ -0,0 +1,26 @@
+package deserialisation;
+
+/**
+ * Class storing a deserialised FHIR Quantity using GSON. The value is kept as a primitive so it does not need to be parsed again.
+ * @author Bryan
+ */
+public class ValueQuantity {
+    private double value;
+    private String unit;
+    
+    /**
+     * Gets the measured value.
+     * @return double
+     */
+    public double getValue() {
+        return this.value;
+    }
+    
+    /**
+     * Gets the unit of the measured value.
+     * @return String
+     */
+    public String getUnit() {
+        return this.unit;
+    }
+}
@@ -3,6 +3,7 @@ package engine;
 import view.LoginView;
 import controller.LoginController;
 import model.LoginModel;
+import requests.RequestHandler;
 
 /**
  * Driver starts the program by first initiating MVC modules for the login page.
@@ -16,7 +17,9 @@ public class Driver {
      */
     public static void main(String[] args) {
         LoginView loginView = new LoginView();
-        LoginModel loginModel = new LoginModel();
+        // One request handler is shared by every part of the program, so identical requests can share one call
+        RequestHandler requestHandler = new RequestHandler();
+        LoginModel loginModel = new LoginModel(requestHandler);
         LoginController loginController = new LoginController(loginView, loginModel);
         
     }
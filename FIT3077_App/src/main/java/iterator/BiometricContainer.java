@@ -1,5 +1,6 @@
 package iterator;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import model.Biometric;
@@ -17,11 +18,46 @@ public class BiometricContainer implements Container {
     }
     
     /**
-     * Returns a copy of the biometrics map.
+     * Returns a point-in-time copy of the biometrics map. This copies every entry, so it should only be used when a caller needs the
+     * biometrics to stay unchanged while it works on them. Lookups and iteration should use get, containsKey, size and getIterator instead.
      * @return Map<String, Biometric> - <'observationCode,patientId' , Biometric>
      */
-    public Map<String, Biometric> getBiometricsCopy(){
-        return new ConcurrentHashMap<String, Biometric>(biometrics);
+    public Map<String, Biometric> getSnapshot(){
+        return new HashMap<String, Biometric>(biometrics);
+    }
+    
+    /**
+     * Gets a biometric without copying the biometrics map.
+     * @param key String - key.
+     * @return Biometric - null if there is no biometric for the key.
+     */
+    public Biometric get(String key){
+        return (key != null) ? getBiometrics().get(key) : null;
+    }
+    
+    /**
+     * Checks if a biometric is stored without copying the biometrics map.
+     * @param key String - key.
+     * @return Boolean - True if it exists, False if not
+     */
+    public Boolean containsKey(String key){
+        return (key != null && getBiometrics().containsKey(key));
+    }
+    
+    /**
+     * Gets the number of biometrics stored.
+     * @return Integer
+     */
+    public Integer size(){
+        return getBiometrics().size();
+    }
+    
+    /**
+     * Checks if there are no biometrics stored.
+     * @return Boolean - True if empty, False if not
+     */
+    public Boolean isEmpty(){
+        return getBiometrics().isEmpty();
     }
     
     /**
@@ -6,6 +6,8 @@ import model.Biometric;
 
 /**
  * BiometricIterator is a concrete iterator implementation for the BiometricContainer aggregate structure based on the iterator design pattern.
+ * It iterates over the container directly without copying it. Iteration is weakly consistent: it never throws a ConcurrentModificationException,
+ * and biometrics added or removed while iterating may or may not be returned.
  * @author Bryan
  */
 public class BiometricIterator implements ContainerIterator {
@@ -16,7 +18,7 @@ public class BiometricIterator implements ContainerIterator {
      * @param biometricContainer BiometricContainer - the aggregate structure to iterate over.
      */
     public BiometricIterator(BiometricContainer biometricContainer){
-        this.it = biometricContainer.getBiometricsCopy().entrySet().iterator();
+        this.it = biometricContainer.getBiometrics().entrySet().iterator();
     }
     
     @Override
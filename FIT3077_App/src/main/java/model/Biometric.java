@@ -1,29 +1,63 @@
 package model;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import observer.Subject;
 
 /**
  * An instance of Biometric represents a single observation of a patient e.g. a cholesterol observation of a patient.
- * A biometric may have more than one quantity if it has several components, and the key for each quantity would be the component name e.g. "systolic". If the biometric
- * has no components and only has one associated quantity, then the key should just be the observation name in lower-case e.g. "cholesterol".
+ * A biometric may have more than one quantity if it has several components e.g. "SYSTOLIC" and "DIASTOLIC". If the biometric has no components and
+ * only has one associated quantity, then the component name is just the observation name e.g. "CHOLESTEROL".
+ * Quantities are stored as primitive doubles at full precision, in the component slots given by the ComponentLayout of the observation type.
+ * They are only formatted for display by the view. The last getHistoryCapacity() observations are also kept in an ObservationHistory, which is
+ * enough for months of regular readings.
  * @author Bryan
  */
 public class Biometric extends Subject {
+    public static final Integer DEFAULT_HISTORY_CAPACITY = 2000;
+    private static volatile Integer historyCapacity = DEFAULT_HISTORY_CAPACITY;
     protected String patientId;
     protected String code;
     protected String givenName;
     protected String familyName;
-    protected String effectiveDateTime;
-    protected Map<String, String> quantity = new ConcurrentHashMap(); // measurement quantity.
-    protected Map<String, String> unit = new ConcurrentHashMap(); // the unit used for this measurement.
+    protected volatile String effectiveDateTime; // written after the quantities, so readers who see the new time also see the new quantities
+    protected final ComponentLayout layout;
+    protected final double[] quantity; // measurement quantity of each component slot, NaN if not measured yet.
+    protected final String[] unit; // the unit used for the measurement of each component slot.
+    protected final ObservationHistory history;
+    protected volatile Boolean backfilled = false; // whether the previous observations have been filled into the history
     
     public Biometric(String code, String patientId, String givenName, String familyName) {
         this.patientId = patientId;
         this.code = code;
         this.givenName = givenName;
         this.familyName = familyName;
+        this.layout = ComponentLayout.forCode(code);
+        this.quantity = new double[layout.size()];
+        this.unit = new String[layout.size()];
+        Arrays.fill(this.quantity, Double.NaN);
+        this.history = new ObservationHistory(getHistoryCapacity(), layout.size());
+    }
+
+    /**
+     * Gets the number of observations kept in the history of each biometric.
+     * @return Integer
+     */
+    public static Integer getHistoryCapacity(){
+        return historyCapacity;
+    }
+    
+    /**
+     * Sets the number of observations kept in the history of each biometric. Only applies to biometrics created afterwards.
+     * @param capacity Integer - number of observations, at least 1.
+     */
+    public static void setHistoryCapacity(Integer capacity){
+        historyCapacity = Math.max(1, capacity);
     }
 
     /**
@@ -51,32 +85,120 @@ public class Biometric extends Subject {
     }
     
     /**
-     * Gets time of observation
-     * @return String
+     * Gets time of observation for display, in the local time of the observation without its UTC offset.
+     * @return String - e.g. "2019-05-06 10:20:30".
      */
     public String getTime(){
-        return effectiveDateTime.replace("T", " ");
+        return effectiveDateTime.replaceFirst("(Z|[+-]\\d{2}:\\d{2})$", "").replace("T", " ");
+    }
+    
+    /**
+     * Gets time of observation as given by the FHIR server, including its UTC offset, without formatting.
+     * @return String - null if the biometric has not been updated yet.
+     */
+    public String getEffectiveDateTime(){
+        return effectiveDateTime;
+    }
+    
+    /**
+     * Gets the component layout of the observation type.
+     * @return ComponentLayout
+     */
+    public ComponentLayout getLayout(){
+        return layout;
+    }
+
+    /**
+     * Gets the history of previous observations, including the current one once it has been recorded.
+     * @return ObservationHistory
+     */
+    public ObservationHistory getHistory(){
+        return history;
+    }
+    
+    /**
+     * Checks if the previous observations of the patient have been filled into the history.
+     * @return Boolean
+     */
+    public Boolean isBackfilled(){
+        return backfilled;
+    }
+    
+    /**
+     * Marks the previous observations of the patient as filled into the history. Used once the history has been fetched successfully.
+     */
+    public void setBackfilled(){
+        backfilled = true;
+    }
+    
+    /**
+     * Records the current quantities in the history at the time of the observation. Used after the observation has been updated.
+     * Observations which are already in the history are not recorded again.
+     */
+    public void recordHistory(){
+        String time = effectiveDateTime;
+        if (time != null) {
+            history.add(toEpochMillis(time), quantity);
+        }
+    }
+    
+    /**
+     * Converts a FHIR date-time into epoch milliseconds. Date-times without an offset are treated as UTC.
+     * @param time String - e.g. "2019-05-06T10:20:30+10:00", "2019-05-06T10:20:30" or "2019-05-06".
+     * @return long
+     */
+    public static long toEpochMillis(String time){
+        return toInstant(time).toEpochMilli();
+    }
+    
+    /**
+     * Converts a FHIR date-time into an instant, so that date-times with different UTC offsets or fractional second precision can be compared.
+     * Date-times without an offset are treated as UTC.
+     * @param time String - e.g. "2019-05-06T10:20:30.123+10:00", "2019-05-06T10:20:30" or "2019-05-06".
+     * @return Instant
+     */
+    public static Instant toInstant(String time){
+        try {
+            return OffsetDateTime.parse(time).toInstant();
+        }
+        catch (DateTimeParseException e) {
+            if (time.contains("T")) {
+                return LocalDateTime.parse(time).toInstant(ZoneOffset.UTC);
+            }
+            return LocalDate.parse(time).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
     }
     
     /**
      * Gets quantity of observation
-     * @return String
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     * @return double - NaN if the component has not been measured yet.
+     */
+    public double getQuantity(String componentName){
+        return quantity[layout.slotOf(componentName)];
+    }
+    
+    /**
+     * Checks if a component has been measured yet.
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     * @return Boolean
      */
-    public String getQuantity(String componentName){
-        return quantity.get(componentName);
+    public Boolean hasQuantity(String componentName){
+        return !Double.isNaN(getQuantity(componentName));
     }
     
     /**
      * Gets unit of observation
+     * @param componentName String - component name e.g. "CHOLESTEROL".
      * @return String
      */
     public String getUnit(String componentName){
-        return unit.get(componentName);
+        return unit[layout.slotOf(componentName)];
     }
     
     /**
      * Sets time of observation
-     * @param time String - Time given by FHIR server
+     * @param time String - Time given by FHIR server, including its UTC offset e.g. "2019-05-06T10:20:30+10:00"
      */
     public void setTime(String time){
         effectiveDateTime = time;
@@ -84,24 +206,19 @@ public class Biometric extends Subject {
     
     /**
      * Sets quantity of observation. Used when observation is updated by the scheduler.
-     * @param quantity String - Quantity given by FHIR server
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     * @param quantity double - Quantity given by FHIR server
      */
-    public void setQuantity(String componentName, String quantity) {
-        // Round quantity received 
-        // Convert String to float
-        Float quantityFloat = Float.parseFloat(quantity);
-        // Convert float to integer and round
-        Integer quantityInt = Math.round(quantityFloat);
-        // Convert back to string
-        String quantityStr = Integer.toString(quantityInt);
-        this.quantity.put(componentName, quantityStr);
+    public void setQuantity(String componentName, double quantity) {
+        this.quantity[layout.slotOf(componentName)] = quantity;
     }
     
     /**
      * Sets unit of observation. Used when observation is updated by the scheduler.
-     * @param unit String - Quantity given by FHIR server
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     * @param unit String - Unit given by FHIR server
      */
     public void setUnit(String componentName, String unit) {
-        this.unit.put(componentName, unit);
+        this.unit[layout.slotOf(componentName)] = unit;
     }
 }
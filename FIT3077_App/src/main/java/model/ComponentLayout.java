@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * ComponentLayout defines the fixed component slots of each observation type. A Biometric stores the value and unit of each component in the
+ * slot given by its layout e.g. a blood pressure biometric stores systolic in slot 0 and diastolic in slot 1.
+ * @author Bryan
+ */
+public enum ComponentLayout {
+    CHOLESTEROL(ObservationName.CHOLESTEROL),
+    BLOOD(ObservationName.SYSTOLIC, ObservationName.DIASTOLIC);
+    
+    private final ObservationName[] components;
+    
+    /**
+     * Constructor for ComponentLayout.
+     * @param components ObservationName[] - components in slot order.
+     */
+    private ComponentLayout(ObservationName... components) {
+        this.components = components;
+    }
+    
+    /**
+     * Gets the layout of an observation type from its observation code.
+     * @param observationCode String - observation code e.g. "2093-3".
+     * @return ComponentLayout
+     */
+    public static ComponentLayout forCode(String observationCode) {
+        ObservationCodes observationCodes = new ObservationCodes();
+        for (ComponentLayout layout : values()) {
+            if (observationCodes.getCode(layout.name()).equals(observationCode)) {
+                return layout;
+            }
+        }
+        throw new IllegalArgumentException("No component layout for observation code " + observationCode);
+    }
+    
+    /**
+     * Gets the slot of a component.
+     * @param componentName String - component name e.g. "SYSTOLIC".
+     * @return int - slot index.
+     */
+    public int slotOf(String componentName) {
+        for (int slot = 0; slot < this.components.length; slot++) {
+            if (this.components[slot].name().equals(componentName)) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException(name() + " has no component " + componentName);
+    }
+    
+    /**
+     * Gets the component stored in a slot.
+     * @param slot int - slot index.
+     * @return ObservationName
+     */
+    public ObservationName getComponent(int slot) {
+        return this.components[slot];
+    }
+    
+    /**
+     * Gets the number of component slots.
+     * @return int
+     */
+    public int size() {
+        return this.components.length;
+    }
+}
@@ -1,12 +1,11 @@
 package model;
 
-import deserialisation.EncounterResponse;
 import deserialisation.ObservationResponse;
 import requests.RequestHandler;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Model component of the Dashboard that handles all business logic such as calling the RequestHandler to make GET requests, storing patient details,
@@ -15,52 +14,66 @@ import java.util.Set;
  */
 public class DashboardModel {
     private Practitioner user;
-    private Map<String, Patient> patients = new HashMap();
-    private RequestHandler requestHandler = new RequestHandler();
+    private static final Integer DEFAULT_PAGE_BUDGET = 20;
+    private Map<String, Patient> patients = new ConcurrentHashMap();
+    private Integer pageBudget = DEFAULT_PAGE_BUDGET;
+    private volatile Boolean patientListTruncated = false;
+    private RequestHandler requestHandler;
     
     /**
-     * Constructor for DashboardModel.
+     * Constructor for DashboardModel. Patients are not loaded until loadPatients is called.
      * @param practitioner Practitioner - Represents the logged in practitioner.
+     * @param requestHandler RequestHandler - shared request handler used to make requests to the FHIR server.
      */
-    public DashboardModel(Practitioner practitioner) {
+    public DashboardModel(Practitioner practitioner, RequestHandler requestHandler) {
         this.user = practitioner;
-        initPatientList();
+        this.requestHandler = requestHandler;
     }
     
     /**
-     * Retrieves all of the logged in practitioner's patients by making requests using the RequestHandler.
+     * Retrieves all of the logged in practitioner's patients in the background by making requests using the RequestHandler.
+     * Encounter pages are fetched while earlier pages are processed, and the listener is notified as soon as patients are loaded.
+     * At most pageBudget encounter pages are fetched. If there are more, the listener is told the patient list was truncated.
+     * @param listener PatientListListener - notified as patients are loaded.
      */
-    private void initPatientList(){
-        // Limit to 5 page GET requests maximum
-        Integer nRequests = 0;
-        Integer requestLimit = 5;
-        // For loop for every patient on a page
-        // Get all encounters that the Practitioner is a part of
-        // Deserialise encounter data
-        EncounterResponse encounterResponse = getRequestHandler().getEncounterFirstPageRequest(user.getSystemId());
-        nRequests ++;
-        // Get a unique set of the patient IDs from this page
-        Set<String> patientIds = new HashSet<String>();
-        patientIds = encounterResponse.getUniquePatientIds(patientIds);
+    public void loadPatients(final PatientListListener listener){
+        PatientLoader loader = new PatientLoader(getRequestHandler(), getPatients(), getPageBudget());
+        loader.start(user.getSystemId(), new PatientListListener() {
+            @Override
+            public void patientsLoaded(List<Patient> patients) {
+                listener.patientsLoaded(patients);
+            }
 
-        // Loop through pages (if any)
-        Boolean nextPage = encounterResponse.hasNextPage();
-        while (nextPage && nRequests < requestLimit) {
-            encounterResponse = getRequestHandler().getEncounterNextPageRequest(encounterResponse);
-            // Get a unique set of the patient IDs from this page which are not already in the set yet
-            patientIds = encounterResponse.getUniquePatientIds(patientIds);
-            // Check if there is another page
-            nextPage = encounterResponse.hasNextPage();
-            // Increment requestHandler count
-            nRequests ++;
-        }
-
-        // Get all patient names based on patient IDs and store data
-        for (String patientId : patientIds) {
-            Patient patient = getRequestHandler().getPatientRequest(patientId);
-            // Add to patients
-            getPatients().put(patient.getId(), patient);
-        }
+            @Override
+            public void loadingFinished(Boolean truncated) {
+                patientListTruncated = truncated;
+                listener.loadingFinished(truncated);
+            }
+        });
+    }
+    
+    /**
+     * Sets the maximum number of encounter pages fetched when loading patients.
+     * @param pageBudget Integer - maximum number of encounter pages.
+     */
+    public void setPageBudget(Integer pageBudget) {
+        this.pageBudget = pageBudget;
+    }
+    
+    /**
+     * Gets the maximum number of encounter pages fetched when loading patients.
+     * @return Integer
+     */
+    public Integer getPageBudget() {
+        return this.pageBudget;
+    }
+    
+    /**
+     * Checks if the last patient load stopped at the page budget, so some patients may be missing.
+     * @return Boolean - True if the patient list was truncated, False if not
+     */
+    public Boolean isPatientListTruncated() {
+        return this.patientListTruncated;
     }
     
     /**
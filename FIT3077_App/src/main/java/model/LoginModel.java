@@ -8,7 +8,15 @@ import requests.RequestHandler;
  * @author Bryan
  */
 public class LoginModel {
-    private RequestHandler requestHandler = new RequestHandler();
+    private RequestHandler requestHandler;
+    
+    /**
+     * Constructor for LoginModel.
+     * @param requestHandler RequestHandler - shared request handler used to make requests to the FHIR server.
+     */
+    public LoginModel(RequestHandler requestHandler) {
+        this.requestHandler = requestHandler;
+    }
     
     /**
      * Initiate a RequestHandler and return result of query for a practitioner ID 
@@ -0,0 +1,230 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * ObservationHistory keeps the last N observations of a biometric in a ring buffer of primitive timestamps and component quantities.
+ * The buffer starts small and doubles as observations are added until it holds N, so a biometric with few observations does not take the
+ * memory of a full history. Observations are stored in chronological order, and index 0 is always the oldest stored observation. Queries never
+ * allocate, so view and statistics code can read the history as often as needed without extra requests to the FHIR server.
+ * @author Bryan
+ */
+public class ObservationHistory {
+    private static final int INITIAL_LENGTH = 16;
+    private long[] times;              // epoch milliseconds of each observation
+    private double[] quantities;       // component quantities of each observation, components are stored next to each other
+    private final int capacity;
+    private final int components;
+    private int start = 0;             // physical position of the oldest observation
+    private int size = 0;
+    
+    /**
+     * Constructor for ObservationHistory.
+     * @param capacity int - maximum number of observations kept. The oldest observation is overwritten once full.
+     * @param components int - number of component quantities of each observation.
+     */
+    public ObservationHistory(int capacity, int components) {
+        this.capacity = capacity;
+        this.components = components;
+        this.times = new long[Math.min(capacity, INITIAL_LENGTH)];
+        this.quantities = new double[this.times.length * components];
+    }
+    
+    /**
+     * Adds an observation. Observations which are not newer than the latest stored observation are ignored, so the same observation can be
+     * added more than once without being duplicated.
+     * @param time long - epoch milliseconds of the observation.
+     * @param componentQuantities double[] - quantity of each component slot.
+     * @return Boolean - True if the observation was added, False if it was ignored.
+     */
+    public synchronized Boolean add(long time, double[] componentQuantities) {
+        if (this.size > 0 && time <= getTime(this.size - 1)) {
+            return false;
+        }
+        int position;
+        if (this.size < capacity()) {
+            if (this.size == this.times.length) {
+                grow();
+            }
+            position = physical(this.size);
+            this.size ++;
+        }
+        else {
+            // Overwrite the oldest observation
+            position = this.start;
+            this.start = (this.start + 1) % this.times.length;
+        }
+        this.times[position] = time;
+        System.arraycopy(componentQuantities, 0, this.quantities, position * this.components, this.components);
+        return true;
+    }
+    
+    /**
+     * Gets the number of observations stored.
+     * @return int
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+    
+    /**
+     * Checks if there are no observations stored.
+     * @return Boolean
+     */
+    public synchronized Boolean isEmpty() {
+        return this.size == 0;
+    }
+    
+    /**
+     * Gets the maximum number of observations kept.
+     * @return int
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+    
+    /**
+     * Gets the time of an observation.
+     * @param index int - 0 for the oldest stored observation, size() - 1 for the latest.
+     * @return long - epoch milliseconds.
+     */
+    public synchronized long getTime(int index) {
+        checkIndex(index);
+        return this.times[physical(index)];
+    }
+    
+    /**
+     * Gets a component quantity of an observation.
+     * @param index int - 0 for the oldest stored observation, size() - 1 for the latest.
+     * @param slot int - component slot given by the ComponentLayout.
+     * @return double
+     */
+    public synchronized double getQuantity(int index, int slot) {
+        checkIndex(index);
+        return this.quantities[physical(index) * this.components + slot];
+    }
+    
+    /**
+     * Finds the first observation at or after a time.
+     * @param time long - epoch milliseconds.
+     * @return int - index of the observation, or size() if there is none.
+     */
+    public synchronized int firstIndexAtOrAfter(long time) {
+        return search(time, false);
+    }
+    
+    /**
+     * Finds the first observation after a time.
+     * @param time long - epoch milliseconds.
+     * @return int - index of the observation, or size() if there is none.
+     */
+    public synchronized int firstIndexAfter(long time) {
+        return search(time, true);
+    }
+    
+    /**
+     * Counts the observations in a time range.
+     * @param from long - start of the range in epoch milliseconds (inclusive).
+     * @param to long - end of the range in epoch milliseconds (inclusive).
+     * @return int
+     */
+    public synchronized int countInRange(long from, long to) {
+        return Math.max(0, firstIndexAfter(to) - firstIndexAtOrAfter(from));
+    }
+    
+    /**
+     * Copies the observations of a component in a time range into arrays supplied by the caller, oldest first.
+     * At most as many observations as fit in the arrays are copied.
+     * @param from long - start of the range in epoch milliseconds (inclusive).
+     * @param to long - end of the range in epoch milliseconds (inclusive).
+     * @param slot int - component slot given by the ComponentLayout.
+     * @param timesOut long[] - receives the times.
+     * @param quantitiesOut double[] - receives the quantities.
+     * @return int - number of observations copied.
+     */
+    public synchronized int copyRange(long from, long to, int slot, long[] timesOut, double[] quantitiesOut) {
+        int limit = Math.min(timesOut.length, quantitiesOut.length);
+        int copied = 0;
+        for (int index = firstIndexAtOrAfter(from); index < this.size && copied < limit; index++) {
+            int position = physical(index);
+            if (this.times[position] > to) {
+                break;
+            }
+            timesOut[copied] = this.times[position];
+            quantitiesOut[copied] = this.quantities[position * this.components + slot];
+            copied ++;
+        }
+        return copied;
+    }
+    
+    /**
+     * Calculates the mean of a component in a time range.
+     * @param from long - start of the range in epoch milliseconds (inclusive).
+     * @param to long - end of the range in epoch milliseconds (inclusive).
+     * @param slot int - component slot given by the ComponentLayout.
+     * @return double - NaN if there are no observations in the range.
+     */
+    public synchronized double meanInRange(long from, long to, int slot) {
+        double sum = 0;
+        int count = 0;
+        for (int index = firstIndexAtOrAfter(from); index < this.size; index++) {
+            int position = physical(index);
+            if (this.times[position] > to) {
+                break;
+            }
+            sum += this.quantities[position * this.components + slot];
+            count ++;
+        }
+        return (count == 0) ? Double.NaN : sum / count;
+    }
+    
+    /**
+     * Binary searches the stored times, which are in chronological order.
+     * @param time long - epoch milliseconds.
+     * @param after Boolean - True to find the first observation after the time, False to find the first observation at or after the time.
+     * @return int - index of the observation, or size() if there is none.
+     */
+    private int search(long time, Boolean after) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long midTime = this.times[physical(mid)];
+            if (midTime < time || (after && midTime == time)) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Converts an index (0 for the oldest observation) into a position in the ring buffer.
+     * @param index int
+     * @return int
+     */
+    private int physical(int index) {
+        return (this.start + index) % this.times.length;
+    }
+    
+    /**
+     * Doubles the length of the buffer, up to the capacity. Only called before the history is full, while the oldest observation is at position 0.
+     */
+    private void grow() {
+        int length = Math.min(capacity(), Math.max(1, this.times.length * 2));
+        this.times = Arrays.copyOf(this.times, length);
+        this.quantities = Arrays.copyOf(this.quantities, length * this.components);
+    }
+    
+    /**
+     * Checks that an index refers to a stored observation.
+     * @param index int
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + this.size);
+        }
+    }
+}
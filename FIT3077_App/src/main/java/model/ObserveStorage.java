@@ -2,6 +2,7 @@ package model;
 
 import iterator.BiometricContainer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ObserveStorage stores all biometric observations as well as any relevant statistics e.g. cholesterol average.
@@ -10,9 +11,11 @@ import java.util.Map;
 public class ObserveStorage {
     private BiometricContainer cholesterolBiometrics = new BiometricContainer();
     private BiometricContainer bloodBiometrics = new BiometricContainer();
-    private Integer cholesterolAvg;
+    private Double cholesterolAvg;
     private Integer systolicThreshold = null;
     private Integer diastolicThreshold = null;
+    private Map<String, RunningStatistics> statistics = new ConcurrentHashMap(); // <'observationCode,componentName' , RunningStatistics>
+    private final Object statisticsLock = new Object(); // held while a biometric is recorded in or removed from the statistics
     
     /**
      * Returns cholesterolBiometrics.
@@ -68,12 +71,57 @@ public class ObserveStorage {
     
     /**
      * Sets the cholesterol average.
-     * @param avg Integer
+     * @param avg Double
      */
-    public void setCholesterolAvg(Integer avg) {
+    public void setCholesterolAvg(Double avg) {
         this.cholesterolAvg = avg;
     }
     
+    /**
+     * Gets the running statistics of a component of an observation type e.g. the cholesterol statistics, or the systolic blood pressure statistics.
+     * @param observationCode String - observation code.
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     * @return RunningStatistics
+     */
+    public RunningStatistics getStatistics(String observationCode, String componentName) {
+        String key = observationCode + "," + componentName;
+        RunningStatistics stats = this.statistics.get(key);
+        if (stats == null) {
+            this.statistics.putIfAbsent(key, new RunningStatistics());
+            stats = this.statistics.get(key);
+        }
+        return stats;
+    }
+    
+    /**
+     * Records the latest quantity of a component of a biometric in the running statistics. Used after a biometric has been updated.
+     * Biometrics which are no longer stored are ignored, so a late update cannot add a removed biometric back into the statistics. The check
+     * and the update are made under the same lock as the removal of a biometric, so a biometric cannot be removed in between.
+     * @param observation Biometric - updated biometric.
+     * @param componentName String - component name e.g. "CHOLESTEROL".
+     */
+    public void recordStatistic(Biometric observation, String componentName) {
+        if (!observation.hasQuantity(componentName)) {
+            return;
+        }
+        String key = observation.getCode() + "," + observation.getId();
+        synchronized (this.statisticsLock) {
+            if (getCholesterolBiometric(key) == observation || getBloodBiometric(key) == observation) {
+                getStatistics(observation.getCode(), componentName).put(key, observation.getQuantity(componentName));
+            }
+        }
+    }
+    
+    /**
+     * Removes a biometric from all running statistics.
+     * @param key String - Key in the form of "observationCode,patientId".
+     */
+    private void removeStatistics(String key) {
+        for (RunningStatistics stats : this.statistics.values()) {
+            stats.remove(key);
+        }
+    }
+    
     /**
      * Stores a cholesterol biometric into storage.
      * @param key String - Key in the form of "observationCode,patientId".
@@ -93,19 +141,19 @@ public class ObserveStorage {
     }
     
     /**
-     * Returns all cholesterol biometrics
+     * Returns a point-in-time copy of all cholesterol biometrics.
      * @return Map<String, Biometric> 
      */
-    public Map<String, Biometric> getCholesterolBiometricsCopy(){
-        return cholesterolBiometrics.getBiometricsCopy();
+    public Map<String, Biometric> getCholesterolBiometricsSnapshot(){
+        return cholesterolBiometrics.getSnapshot();
     }
     
     /**
-     * Returns all blood pressure biometrics
+     * Returns a point-in-time copy of all blood pressure biometrics.
      * @return Map<String, Biometric> 
      */
-    public Map<String, Biometric> getBloodBiometricsCopy(){
-        return bloodBiometrics.getBiometricsCopy();
+    public Map<String, Biometric> getBloodBiometricsSnapshot(){
+        return bloodBiometrics.getSnapshot();
     }
     
     /**
@@ -114,7 +162,7 @@ public class ObserveStorage {
      * @return Biometric - Cholesterol biometric.
      */
     public Biometric getCholesterolBiometric(String key) {
-        return cholesterolBiometrics.getBiometricsCopy().get(key);
+        return cholesterolBiometrics.get(key);
     }
     
      /**
@@ -123,7 +171,7 @@ public class ObserveStorage {
      * @return Biometric
      */
     public Biometric getBloodBiometric(String key) {
-        return bloodBiometrics.getBiometricsCopy().get(key);
+        return bloodBiometrics.get(key);
     }
     
     /**
@@ -132,7 +180,7 @@ public class ObserveStorage {
      * @return Boolean - True if it exists, False if not
      */
     public Boolean hasCholesterolBiometric(String key) {
-        return cholesterolBiometrics.getBiometricsCopy().containsKey(key);
+        return cholesterolBiometrics.containsKey(key);
     }
 
     /**
@@ -141,7 +189,7 @@ public class ObserveStorage {
      * @return Boolean - True if it exists, False if not
      */
     public Boolean hasBloodBiometric(String key) {
-        return bloodBiometrics.getBiometricsCopy().containsKey(key);
+        return bloodBiometrics.containsKey(key);
     }
     
     /**
@@ -149,7 +197,10 @@ public class ObserveStorage {
      * @param key String - Key in the form of "observationCode,patientId"
      */
     public void removeCholesterolBiometric(String key) {
-        getCholesterolBiometricsContainer().remove(key);
+        synchronized (this.statisticsLock) {
+            getCholesterolBiometricsContainer().remove(key);
+            removeStatistics(key);
+        }
     }
     
     /**
@@ -157,7 +208,10 @@ public class ObserveStorage {
      * @param key String - Key in the form of "patientId"
      */
     public void removeBloodBiometric(String key) {
-        getBloodBiometricsContainer().remove(key);
+        synchronized (this.statisticsLock) {
+            getBloodBiometricsContainer().remove(key);
+            removeStatistics(key);
+        }
     }
     
     /**
@@ -165,7 +219,7 @@ public class ObserveStorage {
      * @return Integer
      */
     public Integer numCholesterol(){
-        return getCholesterolBiometricsContainer().getBiometricsCopy().size();
+        return getCholesterolBiometricsContainer().size();
     }
     
     /**
@@ -173,7 +227,7 @@ public class ObserveStorage {
      * @return Integer - Number of blood biometrics.
      */
     public Integer numBlood(){
-        return getBloodBiometricsContainer().getBiometricsCopy().size();
+        return getBloodBiometricsContainer().size();
     }
     
     /**
@@ -194,7 +248,7 @@ public class ObserveStorage {
      * @return Boolean - True if a cholesterol monitor exists, false if not.
      */
     public Boolean hasCholesterolBiometrics(){
-        return !getCholesterolBiometricsContainer().getBiometricsCopy().isEmpty();
+        return !getCholesterolBiometricsContainer().isEmpty();
     }
     
     /**
@@ -202,6 +256,6 @@ public class ObserveStorage {
      * @return Boolean - True if a blood pressure.
      */
     public Boolean hasBloodBiometrics(){
-        return !getBloodBiometricsContainer().getBiometricsCopy().isEmpty();
+        return !getBloodBiometricsContainer().isEmpty();
     }
 }
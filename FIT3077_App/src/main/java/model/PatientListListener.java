@@ -0,0 +1,22 @@
+package model;
+
+import java.util.List;
+
+/**
+ * PatientListListener is notified as the logged in practitioner's patients are loaded in the background, so the patient list can be
+ * displayed progressively instead of after every patient has been loaded.
+ * @author Bryan
+ */
+public interface PatientListListener {
+    /**
+     * Called each time new patients have been loaded. May be called from a background thread.
+     * @param patients List<Patient> - patients which were not loaded before.
+     */
+    public void patientsLoaded(List<Patient> patients);
+    
+    /**
+     * Called once after all patients have been loaded. May be called from a background thread.
+     * @param truncated Boolean - True if loading stopped at the page budget before the last page of encounters.
+     */
+    public void loadingFinished(Boolean truncated);
+}
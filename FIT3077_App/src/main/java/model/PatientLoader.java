@@ -0,0 +1,217 @@
+package model;
+
+import deserialisation.EncounterResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import requests.RequestHandler;
+import requests.RequestPriority;
+
+/**
+ * PatientLoader loads the logged in practitioner's patients in the background. Encounter pages are fetched one after the other, as the link to
+ * the next page is only known once a page has been read, and patients who were not included in a page are requested concurrently as soon as
+ * their IDs are found. Patients are handed to a PatientListListener as soon as they are loaded.
+ * Every request is made at background priority (see RequestPriority), so loading a long patient list does not use up the rate budget of
+ * interactive requests.
+ * @author Bryan
+ */
+public class PatientLoader {
+    private static final Integer PATIENT_REQUEST_THREADS = 4;
+    private RequestHandler requestHandler;
+    private Map<String, Patient> patients;
+    private Integer pageBudget;
+    private ExecutorService pageFetcher = Executors.newSingleThreadExecutor(newThreadFactory("patient-loader-pages"));
+    private ExecutorService patientFetcher = Executors.newFixedThreadPool(PATIENT_REQUEST_THREADS, newThreadFactory("patient-loader-patients"));
+    private Set<String> seenPatientIds = new HashSet(); // only accessed by the page fetcher thread
+    private List<Future<?>> patientRequests = Collections.synchronizedList(new ArrayList<Future<?>>());
+    
+    /**
+     * Constructor for PatientLoader.
+     * @param requestHandler RequestHandler - used to make the GET requests.
+     * @param patients Map<String, Patient> - thread-safe map the loaded patients are stored in.
+     * @param pageBudget Integer - maximum number of encounter pages to fetch.
+     */
+    public PatientLoader(RequestHandler requestHandler, Map<String, Patient> patients, Integer pageBudget) {
+        this.requestHandler = requestHandler;
+        this.patients = patients;
+        this.pageBudget = pageBudget;
+    }
+    
+    /**
+     * Starts loading the patients of a practitioner in the background.
+     * @param systemId String - system ID of the practitioner.
+     * @param listener PatientListListener - notified as patients are loaded.
+     */
+    public void start(final String systemId, final PatientListListener listener) {
+        this.pageFetcher.submit(new Runnable() {
+            @Override
+            public void run() {
+                Boolean truncated = false;
+                try {
+                    truncated = fetchPages(systemId, listener);
+                    // Wait for every patient request to complete
+                    for (Future<?> patientRequest : getPatientRequests()) {
+                        patientRequest.get();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(PatientLoader.class.getName()).log(Level.SEVERE, null, ex);
+                } finally {
+                    getPatientFetcher().shutdown();
+                    listener.loadingFinished(truncated);
+                }
+            }
+        });
+        this.pageFetcher.shutdown();
+    }
+    
+    /**
+     * Fetches encounter pages one after the other until there are no more pages or the page budget is used, processing each page as it arrives.
+     * @param systemId String - system ID of the practitioner.
+     * @param listener PatientListListener - notified as patients are loaded.
+     * @return Boolean - True if there were more pages than the page budget.
+     */
+    private Boolean fetchPages(String systemId, PatientListListener listener) {
+        EncounterResponse encounterResponse = getRequestHandler().getEncounterFirstPageRequest(systemId);
+        Integer nRequests = 1;
+        while (encounterResponse != null) {
+            processPage(encounterResponse, listener);
+            if (!encounterResponse.hasNextPage()) {
+                return false;
+            }
+            if (nRequests >= getPageBudget()) {
+                Logger.getLogger(PatientLoader.class.getName()).log(Level.WARNING, "Stopped loading patients after the page budget of {0} encounter pages.", getPageBudget());
+                return true;
+            }
+            encounterResponse = getRequestHandler().getEncounterNextPageRequest(encounterResponse);
+            nRequests ++;
+        }
+        Logger.getLogger(PatientLoader.class.getName()).log(Level.WARNING, "Could not load encounter page {0}.", nRequests);
+        return false;
+    }
+    
+    /**
+     * Processes a page of encounters. Patients included in the page are stored and handed to the listener straight away, and patients who were
+     * not included are requested concurrently.
+     * @param encounterResponse EncounterResponse - page of encounters.
+     * @param listener PatientListListener - notified as patients are loaded.
+     */
+    private void processPage(EncounterResponse encounterResponse, PatientListListener listener) {
+        // 1. Get the patient IDs of this page which have not been seen in a previous page
+        Set<String> newPatientIds = encounterResponse.getUniquePatientIds(new HashSet<String>());
+        newPatientIds.removeAll(getSeenPatientIds());
+        getSeenPatientIds().addAll(newPatientIds);
+        
+        // 2. Store patients included in the page
+        Map<String, Patient> included = encounterResponse.getIncludedPatients(new HashMap<String, Patient>());
+        List<Patient> loaded = new ArrayList();
+        for (String patientId : newPatientIds) {
+            if (included.containsKey(patientId)) {
+                getPatients().put(patientId, included.get(patientId));
+                loaded.add(included.get(patientId));
+            }
+            // 3. Request patients which were not included
+            else {
+                requestPatient(patientId, listener);
+            }
+        }
+        if (!loaded.isEmpty()) {
+            listener.patientsLoaded(loaded);
+        }
+    }
+    
+    /**
+     * Requests a single patient on the patient fetcher, then stores it and hands it to the listener.
+     * @param patientId String - ID of the patient.
+     * @param listener PatientListListener - notified when the patient is loaded.
+     */
+    private void requestPatient(final String patientId, final PatientListListener listener) {
+        getPatientRequests().add(getPatientFetcher().submit(new Runnable() {
+            @Override
+            public void run() {
+                Patient patient = getRequestHandler().getPatientRequest(patientId);
+                if (patient != null) {
+                    getPatients().put(patient.getId(), patient);
+                    listener.patientsLoaded(Collections.singletonList(patient));
+                }
+            }
+        }));
+    }
+    
+    /**
+     * Creates a thread factory for daemon threads with a given name, which make background requests.
+     * @param name String - thread name.
+     * @return ThreadFactory
+     */
+    private static ThreadFactory newThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(RequestPriority.background(r), name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+    
+    /**
+     * Get requestHandler attribute.
+     * @return RequestHandler
+     */
+    public RequestHandler getRequestHandler() {
+        return this.requestHandler;
+    }
+    
+    /**
+     * Get patients attribute.
+     * @return Map<String, Patient>
+     */
+    public Map<String, Patient> getPatients() {
+        return this.patients;
+    }
+    
+    /**
+     * Get pageBudget attribute.
+     * @return Integer
+     */
+    public Integer getPageBudget() {
+        return this.pageBudget;
+    }
+    
+    /**
+     * Get patientFetcher attribute.
+     * @return ExecutorService
+     */
+    private ExecutorService getPatientFetcher() {
+        return this.patientFetcher;
+    }
+    
+    /**
+     * Get seenPatientIds attribute.
+     * @return Set<String>
+     */
+    private Set<String> getSeenPatientIds() {
+        return this.seenPatientIds;
+    }
+    
+    /**
+     * Get patientRequests attribute.
+     * @return List<Future<?>>
+     */
+    private List<Future<?>> getPatientRequests() {
+        return this.patientRequests;
+    }
+}
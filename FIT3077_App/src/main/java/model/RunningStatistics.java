@@ -0,0 +1,121 @@
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * RunningStatistics keeps the count, sum, minimum, maximum and variance of the latest value of each monitored biometric. Statistics are updated
+ * incrementally when a single value changes or is removed, so they never need to be recalculated from every stored biometric.
+ * @author Bryan
+ */
+public class RunningStatistics {
+    private Map<String, Double> values = new HashMap();           // <'observationCode,patientId' , latest value>
+    private TreeMap<Double, Integer> valueCounts = new TreeMap(); // <value, number of biometrics with that value>, used for min and max
+    private Double sum = 0.0;
+    private Double sumOfSquares = 0.0;
+    
+    /**
+     * Records the latest value of a biometric, replacing its previous value if there is one.
+     * @param key String - Key in the form of "observationCode,patientId".
+     * @param value Double - latest value.
+     */
+    public synchronized void put(String key, Double value) {
+        Double previous = this.values.put(key, value);
+        if (previous != null) {
+            subtract(previous);
+        }
+        this.sum += value;
+        this.sumOfSquares += value * value;
+        Integer count = this.valueCounts.get(value);
+        this.valueCounts.put(value, (count == null) ? 1 : count + 1);
+    }
+    
+    /**
+     * Removes the value of a biometric which is no longer monitored.
+     * @param key String - Key in the form of "observationCode,patientId".
+     */
+    public synchronized void remove(String key) {
+        Double previous = this.values.remove(key);
+        if (previous != null) {
+            subtract(previous);
+        }
+    }
+    
+    /**
+     * Removes a value from the running sums and value counts.
+     * @param value Double - value to remove.
+     */
+    private void subtract(Double value) {
+        this.sum -= value;
+        this.sumOfSquares -= value * value;
+        Integer count = this.valueCounts.get(value);
+        if (count == 1) {
+            this.valueCounts.remove(value);
+        }
+        else {
+            this.valueCounts.put(value, count - 1);
+        }
+        // Reset the sums once empty so rounding errors do not build up
+        if (this.values.isEmpty()) {
+            this.sum = 0.0;
+            this.sumOfSquares = 0.0;
+        }
+    }
+    
+    /**
+     * Gets the number of values.
+     * @return Integer
+     */
+    public synchronized Integer getCount() {
+        return this.values.size();
+    }
+    
+    /**
+     * Gets the sum of all values.
+     * @return Double
+     */
+    public synchronized Double getSum() {
+        return this.sum;
+    }
+    
+    /**
+     * Gets the mean of all values.
+     * @return Double - null if there are no values.
+     */
+    public synchronized Double getMean() {
+        if (this.values.isEmpty()) {
+            return null;
+        }
+        return this.sum / this.values.size();
+    }
+    
+    /**
+     * Gets the smallest value.
+     * @return Double - null if there are no values.
+     */
+    public synchronized Double getMin() {
+        return this.valueCounts.isEmpty() ? null : this.valueCounts.firstKey();
+    }
+    
+    /**
+     * Gets the largest value.
+     * @return Double - null if there are no values.
+     */
+    public synchronized Double getMax() {
+        return this.valueCounts.isEmpty() ? null : this.valueCounts.lastKey();
+    }
+    
+    /**
+     * Gets the population variance of all values.
+     * @return Double - null if there are no values.
+     */
+    public synchronized Double getVariance() {
+        if (this.values.isEmpty()) {
+            return null;
+        }
+        Double mean = this.sum / this.values.size();
+        // Rounding errors can make the variance of equal values slightly negative
+        return Math.max(0.0, this.sumOfSquares / this.values.size() - mean * mean);
+    }
+}
@@ -1,11 +1,12 @@
 package monitor_tasks;
 
-import deserialisation.ObservationResponse;
-import iterator.BiometricIterator;
-import java.util.List;
-import java.util.Map;
+import deserialisation.ObservationComponent;
+import deserialisation.ObservationEntry;
+import iterator.BiometricContainer;
 import model.Biometric;
+import model.ObservationHistory;
 import model.ObserveStorage;
+import requests.RequestHandler;
 import view.DashboardView;
 
 /**
@@ -13,80 +14,41 @@ import view.DashboardView;
  * @author Bryan
  */
 public class BloodMonitorTasks extends MonitorTasks{
-    
+
     /**
      * Constructor for BloodMonitorTasks.
      * @param storage ObserveStorage - contains storage of monitors.
      * @param view DashboardView - view component of dashboard.
+     * @param refreshEngine RefreshEngine - sends the refresh requests of a tick concurrently.
+     * @param requestHandler RequestHandler - shared request handler used to make requests to the FHIR server.
      */
-    public BloodMonitorTasks(ObserveStorage storage, DashboardView view) {
-        super(storage, view);
+    public BloodMonitorTasks(ObserveStorage storage, DashboardView view, RefreshEngine refreshEngine, RequestHandler requestHandler) {
+        super(storage, view, refreshEngine, requestHandler);
     }
 
     @Override
-    public void updateMonitors() {
-        if (this.storage.hasBloodBiometrics()) {
-            // Loop through all existing monitors
-            BiometricIterator it = this.storage.getBloodBiometricsContainer().getIterator();
-            while (it.hasNext()){
-                // Get requestHandler for new observation data
-                Map.Entry<String, Biometric> biometric = it.next();
-                String key = biometric.getKey();
-                Biometric observation = biometric.getValue();
-                
-                // Get requestHandler for new observation data
-                String patientId = key.split(",")[1];
-                String observationCode = observation.getCode();
-                
-                ObservationResponse observationResponse = this.requestHandler.getBiometricRequest(patientId, observationCode, "1");
-                // Update observation with current observation data
-                List<List<Map<String, String>>> componentMeasurements = observationResponse.getAllComponentMeasurements();
-                for (Integer entry = 0; entry < componentMeasurements.size(); entry++) {
-                    for (Integer component = 0; component < componentMeasurements.get(entry).size(); component++) {
-                        if (componentMeasurements.get(entry).get(component).get("name").equals("Systolic Blood Pressure")){
-                            observation.setQuantity(this.observationName.SYSTOLIC.name(), componentMeasurements.get(entry).get(component).get("qty"));
-                            observation.setUnit(this.observationName.SYSTOLIC.name(), componentMeasurements.get(entry).get(component).get("unit"));
-                        }
-                        if (componentMeasurements.get(entry).get(component).get("name").equals("Diastolic Blood Pressure")){
-                            observation.setQuantity(this.observationName.DIASTOLIC.name(), componentMeasurements.get(entry).get(component).get("qty"));
-                            observation.setUnit(this.observationName.DIASTOLIC.name(), componentMeasurements.get(entry).get(component).get("unit"));
-                        }
-                    }
-                }
-                
-                observation.setTime(observationResponse.getTimes().get(0).split("\\+")[0]);
-                //  Notify all observers
-                observation.notifyObservers();
-            }
+    public void updateMonitors(BiometricContainer container) {
+        if (this.storage.hasBloodBiometrics() && !container.isEmpty()) {
+            // Get new observation data for the given monitors, update them and notify their observers
+            refreshMonitors(container);
             // Check for values above blood thresholds
             updateStatistics();
         }
     }
 
+    @Override
+    public BiometricContainer getBiometricsContainer() {
+        return this.storage.getBloodBiometricsContainer();
+    }
+
     @Override
     public void addMonitor(String key) {
             // 1. Get added observation
             Biometric observation = this.storage.getBloodBiometric(key);
-            String observationCode = key.split(",")[0];
-            String patientId = key.split(",")[1];
 
-            // 2. Get requestHandler for observation data
-            ObservationResponse observationResponse = requestHandler.getBiometricRequest(patientId, observationCode, "1");
-            // 3. Update observation data
-            List<List<Map<String, String>>> componentMeasurements = observationResponse.getAllComponentMeasurements();
-            for (Integer entry = 0; entry < componentMeasurements.size(); entry++) {
-                for (Integer component = 0; component < componentMeasurements.get(entry).size(); component++) {
-                    if (componentMeasurements.get(entry).get(component).get("name").equals("Systolic Blood Pressure")){
-                        observation.setQuantity(observationName.SYSTOLIC.name(), componentMeasurements.get(entry).get(component).get("qty"));
-                        observation.setUnit(observationName.SYSTOLIC.name(), componentMeasurements.get(entry).get(component).get("unit"));
-                    }
-                    if (componentMeasurements.get(entry).get(component).get("name").equals("Diastolic Blood Pressure")){
-                        observation.setQuantity(observationName.DIASTOLIC.name(), componentMeasurements.get(entry).get(component).get("qty"));
-                        observation.setUnit(observationName.DIASTOLIC.name(), componentMeasurements.get(entry).get(component).get("unit"));
-                    }
-                }
-            }
-            observation.setTime(observationResponse.getTimes().get(0).split("\\+")[0]);
+            // 2. Get observation data, including previous observations for the history, and update the observation
+            backfillObservation(observation);
+            // 3. Store observation
             this.storage.storeBloodBiometric(key, observation);
             // 4. Notify all observers
             observation.notifyObservers();
@@ -94,6 +56,58 @@ public class BloodMonitorTasks extends MonitorTasks{
             updateStatistics();
     }
 
+    @Override
+    protected void updateObservation(Biometric observation, ObservationEntry entry) {
+        for (ObservationComponent component : entry.getComponents()) {
+            if (component.getObservationName().equals("Systolic Blood Pressure")){
+                observation.setQuantity(observationName.SYSTOLIC.name(), component.getQuantity());
+                observation.setUnit(observationName.SYSTOLIC.name(), component.getUnit());
+            }
+            if (component.getObservationName().equals("Diastolic Blood Pressure")){
+                observation.setQuantity(observationName.DIASTOLIC.name(), component.getQuantity());
+                observation.setUnit(observationName.DIASTOLIC.name(), component.getUnit());
+            }
+        }
+        observation.setTime(entry.getTime());
+        this.storage.recordStatistic(observation, observationName.SYSTOLIC.name());
+        this.storage.recordStatistic(observation, observationName.DIASTOLIC.name());
+        observation.recordHistory();
+    }
+
+    @Override
+    public Boolean needsAttention(Biometric observation) {
+        if (!storage.hasBloodThresholds()) {
+            return false;
+        }
+        return nearThreshold(observation, observationName.SYSTOLIC.name(), storage.getSystolicThreshold())
+                || nearThreshold(observation, observationName.DIASTOLIC.name(), storage.getDiastolicThreshold());
+    }
+
+    /**
+     * Checks if a component of a biometric is over its threshold, or has risen since the previous observation and would be over it after one more rise of the same size.
+     * @param observation Biometric - blood pressure biometric.
+     * @param componentName String - component name e.g. "SYSTOLIC".
+     * @param threshold Integer - threshold of the component.
+     * @return Boolean
+     */
+    private Boolean nearThreshold(Biometric observation, String componentName, Integer threshold) {
+        if (!observation.hasQuantity(componentName)) {
+            return false;
+        }
+        double latest = observation.getQuantity(componentName);
+        if (latest > threshold) {
+            return true;
+        }
+        ObservationHistory history = observation.getHistory();
+        int size = history.size();
+        if (size < 2) {
+            return false;
+        }
+        int slot = observation.getLayout().slotOf(componentName);
+        double rise = history.getQuantity(size - 1, slot) - history.getQuantity(size - 2, slot);
+        return rise > 0 && latest + rise > threshold;
+    }
+
     @Override
     public void updateStatistics() {
         if (storage.hasBloodThresholds()) {
@@ -1,10 +1,12 @@
 package monitor_tasks;
 
-import deserialisation.ObservationResponse;
-import iterator.BiometricIterator;
-import java.util.Map;
+import deserialisation.ObservationEntry;
+import iterator.BiometricContainer;
 import model.Biometric;
+import model.ObservationCodes;
 import model.ObserveStorage;
+import model.RunningStatistics;
+import requests.RequestHandler;
 import view.DashboardView;
 
 /**
@@ -12,91 +14,85 @@ import view.DashboardView;
  * @author Bryan
  */
 public class CholesterolMonitorTasks extends MonitorTasks{
+    public static final Integer INTERVAL_MULTIPLIER = 4; // cholesterol is measured far less often than blood pressure
+    private ObservationCodes observationCodes = new ObservationCodes();
 
     /**
      * Constructor for CholesterolMonitorTasks.
      * @param storage ObserveStorage - contains storage of monitors.
      * @param view DashboardView - view component of dashboard.
+     * @param refreshEngine RefreshEngine - sends the refresh requests of a tick concurrently.
+     * @param requestHandler RequestHandler - shared request handler used to make requests to the FHIR server.
      */
-    public CholesterolMonitorTasks(ObserveStorage storage, DashboardView view) {
-        super(storage, view);
+    public CholesterolMonitorTasks(ObserveStorage storage, DashboardView view, RefreshEngine refreshEngine, RequestHandler requestHandler) {
+        super(storage, view, refreshEngine, requestHandler);
     }
 
     @Override
-    public void updateMonitors() {
-        if (this.storage.hasCholesterolBiometrics()) {
-            // Loop through all existing monitors
-            BiometricIterator it = this.storage.getCholesterolBiometricsContainer().getIterator();
-            while (it.hasNext()){
-                // 1. Get requestHandler for new observation data
-                Map.Entry<String, Biometric> biometric = it.next();
-                String key = biometric.getKey();
-                Biometric observation = biometric.getValue();
-
-                String patientId = key.split(",")[1];
-                String observationCode = observation.getCode();
-                
-                ObservationResponse observationResponse = requestHandler.getBiometricRequest(patientId, observationCode, "1");
-                // 2. Update observation with current observation data
-                observation.setQuantity(observationName.CHOLESTEROL.name(), observationResponse.getQuantity());
-                observation.setUnit(observationName.CHOLESTEROL.name(), observationResponse.getUnit());
-                observation.setTime(observationResponse.getTimes().get(0).split("\\+")[0]);
-                // 3. Store new observation
-                this.storage.storeCholesterolBiometric(key, observation);
-                // 4. Notify all observers
-                observation.notifyObservers();
-            } 
-            // 5. Calculate average if there is more than one monitor now
+    public void updateMonitors(BiometricContainer container) {
+        if (this.storage.hasCholesterolBiometrics() && !container.isEmpty()) {
+            // 1. Get new observation data for the given monitors, update them and notify their observers
+            refreshMonitors(container);
+            // 2. Calculate average if there is more than one monitor now
             if (this.storage.numCholesterol() > 1){
                 updateStatistics();
-            } 
-            //6. Update cholesterol bar chart
+            }
+            // 3. Update cholesterol bar chart
             view.updateCholesterolGraphMonitor();
         }
     }
 
+    @Override
+    public BiometricContainer getBiometricsContainer() {
+        return this.storage.getCholesterolBiometricsContainer();
+    }
+
+    @Override
+    public Integer getIntervalMultiplier() {
+        return INTERVAL_MULTIPLIER;
+    }
+
     @Override
     public void addMonitor(String key) {
             // 1. Get added observation
             Biometric observation = this.storage.getCholesterolBiometric(key);
-            String observationCode = key.split(",")[0];
-            String patientId = key.split(",")[1];
 
-            // 2. Get requestHandler for observation data
-            ObservationResponse observationResponse = requestHandler.getBiometricRequest(patientId, observationCode, "1");
-            // 3. Update observation data
-            observation.setQuantity(observationName.CHOLESTEROL.name(),observationResponse.getQuantity());
-            observation.setUnit(observationName.CHOLESTEROL.name(), observationResponse.getUnit());
-            observation.setTime(observationResponse.getTimes().get(0).split("\\+")[0]);
+            // 2. Get observation data, including previous observations for the history, and update the observation
+            backfillObservation(observation);
+            // 3. Store observation
             this.storage.storeCholesterolBiometric(key, observation);
             // 4. Notify all observers
             observation.notifyObservers();
             // 5. Calculate average if there is more than one monitor now
             if (this.storage.numCholesterol() > 1){
                 updateStatistics();
-            } 
+            }
             //6. Update cholesterol bar chart
             view.updateCholesterolGraphMonitor();
     }
 
+    @Override
+    protected void updateObservation(Biometric observation, ObservationEntry entry) {
+        observation.setQuantity(observationName.CHOLESTEROL.name(), entry.getQuantity());
+        observation.setUnit(observationName.CHOLESTEROL.name(), entry.getUnit());
+        observation.setTime(entry.getTime());
+        this.storage.recordStatistic(observation, observationName.CHOLESTEROL.name());
+        observation.recordHistory();
+    }
+
     @Override
     public void updateStatistics() {
-        Integer sum = 0;
-        Integer average = null;
-        
-        // 1. Loop through all cholesterol observations to calculate sum of quantities
-        BiometricIterator it = this.storage.getCholesterolBiometricsContainer().getIterator();
-        while (it.hasNext()){
-            // Get the quantity value from the biometric and convert it into Integer
-            sum += Integer.parseInt(it.next().getValue().getQuantity(observationName.CHOLESTEROL.name()));
-        }
+        Double average = null;
+
+        // 1. Get the running cholesterol statistics, which are kept up to date as observations are updated and removed
+        RunningStatistics stats = this.storage.getStatistics(observationCodes.getCode(observationName.CHOLESTEROL.name()), observationName.CHOLESTEROL.name());
         // 2. Calculate average
         // If there are no cholesterol observations, return the average as null.
-        if (this.storage.numCholesterol() > 0) {
-            average = sum/this.storage.numCholesterol();
+        if (stats.getCount() > 0) {
+            average = stats.getMean();
             this.storage.setCholesterolAvg(average);
         }
         view.updateCholesterolAverage(average);
     }
-    
+
 }
@@ -1,5 +1,16 @@
 package monitor_tasks;
 
+import deserialisation.ObservationEntry;
+import deserialisation.ObservationResponse;
+import iterator.BiometricContainer;
+import iterator.BiometricIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.ws.WebServiceException;
+import model.Biometric;
 import model.ObservationName;
 import model.ObserveStorage;
 import requests.RequestHandler;
@@ -10,34 +21,170 @@ import view.DashboardView;
  * @author Bryan
  */
 public abstract class MonitorTasks {
+    public static final Integer BACKFILL_PAGE_SIZE = 200; // observations per request when filling in a history, within the server's page size limit
     protected ObserveStorage storage;
     protected DashboardView view;
-    protected RequestHandler requestHandler = new RequestHandler();
+    protected RequestHandler requestHandler;
     protected ObservationName observationName;
-    
+    protected RefreshEngine refreshEngine;
+
     /**
      * Constructor for MonitorTasks.
      * @param storage ObserveStorage - contains storage of monitors.
      * @param view DashboardView - view component of dashboard.
+     * @param refreshEngine RefreshEngine - sends the refresh requests of a tick concurrently.
+     * @param requestHandler RequestHandler - shared request handler used to make requests to the FHIR server.
      */
-    public MonitorTasks(ObserveStorage storage, DashboardView view){
+    public MonitorTasks(ObserveStorage storage, DashboardView view, RefreshEngine refreshEngine, RequestHandler requestHandler){
         this.storage = storage;
         this.view = view;
+        this.refreshEngine = refreshEngine;
+        this.requestHandler = requestHandler;
     }
-    
+
     /**
      * Updates monitors to get latest information from the FHIR server.
      */
-    public abstract void updateMonitors();
-    
+    public void updateMonitors(){
+        updateMonitors(getBiometricsContainer());
+    }
+
+    /**
+     * Updates some of the monitors to get latest information from the FHIR server e.g. those which are due to be polled.
+     * Statistics are updated over all monitors.
+     * @param container BiometricContainer - biometrics to refresh.
+     */
+    public abstract void updateMonitors(BiometricContainer container);
+
+    /**
+     * Gets the container of every biometric monitored by these tasks.
+     * @return BiometricContainer
+     */
+    public abstract BiometricContainer getBiometricsContainer();
+
     /**
      * Adds a monitor to be stored without interrupting any existing scheduled updates.
      * @param key String - key of the observation to be stored.
      */
     public abstract void addMonitor(String key);
-    
+
     /**
      * Updates any statistics maintained in the monitors.
      */
     public abstract void updateStatistics();
+
+    /**
+     * Gets how many times longer than the update frequency the monitors of this observation type are polled at, e.g. because its observations
+     * change more slowly than others.
+     * @return Integer - 1 unless overridden.
+     */
+    public Integer getIntervalMultiplier(){
+        return 1;
+    }
+
+    /**
+     * Checks if a biometric needs closer attention, e.g. because it is over a threshold or trending toward it, so it should be polled more often.
+     * @param observation Biometric - biometric to check.
+     * @return Boolean - False unless overridden.
+     */
+    public Boolean needsAttention(Biometric observation){
+        return false;
+    }
+
+    /**
+     * Updates a biometric with the measurements of an observation entry.
+     * @param observation Biometric - biometric to update.
+     * Implementations should record the updated biometric in its history.
+     * @param entry ObservationEntry - latest observation entry from the FHIR server.
+     */
+    protected abstract void updateObservation(Biometric observation, ObservationEntry entry);
+
+    /**
+     * Fills a newly added biometric with its previous observations as well as its latest one, up to the capacity of its history. The observations
+     * are requested BACKFILL_PAGE_SIZE at a time, following the next page links of the search.
+     * Observations are applied from oldest to newest, so the biometric ends up holding the latest observation. The biometric is only marked as
+     * backfilled once this has succeeded.
+     * @param observation Biometric - biometric to fill.
+     */
+    protected void backfillObservation(Biometric observation){
+        Integer capacity = observation.getHistory().capacity();
+        ObservationResponse observationResponse = getRequestHandler().getBiometricRequest(observation.getId(), observation.getCode(), String.valueOf(Math.min(capacity, BACKFILL_PAGE_SIZE)));
+        List<ObservationEntry> entries = new ArrayList<ObservationEntry>(observationResponse.getEntries());
+        while (entries.size() < capacity && observationResponse.hasNextPage()) {
+            observationResponse = getRequestHandler().getObservationNextPageRequest(observationResponse);
+            entries.addAll(observationResponse.getEntries());
+        }
+        for (Integer i = Math.min(entries.size(), capacity) - 1; i >= 0; i--) {
+            updateObservation(observation, entries.get(i));
+        }
+        observation.setBackfilled();
+    }
+
+    /**
+     * Fetches the latest observation of every biometric in a container through the refresh engine, then updates each biometric and notifies its observers once the whole tick has completed.
+     * Biometrics whose observation has not changed since the last update are not notified. Biometrics which have not been backfilled yet, e.g.
+     * because their backfill failed on an earlier update, are backfilled first.
+     * Updates are applied to the biometrics in the live container of getBiometricsContainer(), so that biometrics which stopped being monitored while
+     * the tick was in progress are skipped even if the given container is a copy, e.g. of the monitors which are due.
+     * @param container BiometricContainer - biometrics to refresh.
+     */
+    protected void refreshMonitors(BiometricContainer container){
+        // 1. Get latest observation data for all monitors
+        Map<String, ObservationEntry> changes = getRefreshEngine().fetchChanges(getRequestHandler(), container);
+        for (Map.Entry<String, ObservationEntry> change : changes.entrySet()) {
+            // Skip biometrics which were removed while the tick was in progress
+            Biometric observation = getBiometricsContainer().get(change.getKey());
+            if (observation != null) {
+                // 2. Update observation with current observation data, filling in its history if it was only just added
+                tryBackfillObservation(observation);
+                updateObservation(observation, change.getValue());
+                // 3. Notify all observers
+                observation.notifyObservers();
+            }
+        }
+        // 4. Retry the backfill of unchanged biometrics whose backfill failed on an earlier update
+        BiometricIterator it = container.getIterator();
+        while (it.hasNext()) {
+            String key = it.next().getKey();
+            Biometric observation = getBiometricsContainer().get(key);
+            if (observation != null && !changes.containsKey(key) && !observation.isBackfilled() && tryBackfillObservation(observation)) {
+                observation.notifyObservers();
+            }
+        }
+    }
+
+    /**
+     * Backfills a biometric unless it has been backfilled already. A failure is logged, so that one patient does not hold up the others,
+     * and the backfill is tried again on the next update.
+     * @param observation Biometric - biometric to fill.
+     * @return Boolean - True if the biometric was backfilled by this call.
+     */
+    private Boolean tryBackfillObservation(Biometric observation){
+        if (observation.isBackfilled()) {
+            return false;
+        }
+        try {
+            backfillObservation(observation);
+            return true;
+        } catch (WebServiceException ex) {
+            Logger.getLogger(MonitorTasks.class.getName()).log(Level.WARNING, "Could not fill in history of " + observation.getCode() + "," + observation.getId(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Get requestHandler attribute.
+     * @return RequestHandler
+     */
+    public RequestHandler getRequestHandler(){
+        return this.requestHandler;
+    }
+
+    /**
+     * Get refreshEngine attribute.
+     * @return RefreshEngine
+     */
+    public RefreshEngine getRefreshEngine(){
+        return this.refreshEngine;
+    }
 }
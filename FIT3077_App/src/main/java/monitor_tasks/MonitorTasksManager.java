@@ -1,11 +1,22 @@
 package monitor_tasks;
 
+import iterator.BiometricContainer;
+import iterator.BiometricIterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import model.Biometric;
 import model.ObservationCodes;
 import model.ObservationName;
 import model.ObserveStorage;
+import requests.RequestHandler;
+import scheduler.AdaptiveBackoff;
 import scheduler.MonitorUpdateScheduler;
+import scheduler.PollSchedule;
 import view.DashboardView;
 
 /**
@@ -19,25 +30,34 @@ public class MonitorTasksManager {
     private DashboardView view;
     private Map<String, MonitorTasks> monitorTasksMap = new ConcurrentHashMap();
     private MonitorUpdateScheduler scheduler;
+    private RefreshEngine refreshEngine = new RefreshEngine();
+    private PollSchedule pollSchedule;
+    private RequestHandler requestHandler;
+    private AdaptiveBackoff adaptiveBackoff = new AdaptiveBackoff();
     
     /**
      * Constructor for MonitorTaskManager.
      * @param storage ObserveStorage - stores all the monitors involved in the task execution.
      * @param view DashboardView - view component of the dashboard.
+     * @param requestHandler RequestHandler - shared request handler used by the monitor tasks.
      */
-    public MonitorTasksManager(ObserveStorage storage, DashboardView view) {
+    public MonitorTasksManager(ObserveStorage storage, DashboardView view, RequestHandler requestHandler) {
         this.storage = storage;
         this.view = view;
+        this.requestHandler = requestHandler;
         this.scheduler = new MonitorUpdateScheduler(this);
+        this.pollSchedule = new PollSchedule(this.scheduler.getFrequency());
+        getRefreshEngine().setPaced(true);
         init();
+        updateTypeIntervals(this.scheduler.getFrequency());
     }
     
     /**
      * Initialises monitorTaskMap attribute with subclasses of MonitorTasks with their corresponding observation names as keys.
      */
     private void init(){
-        getMonitorTasksMap().put(observationName.CHOLESTEROL.name(), new CholesterolMonitorTasks(getStorage(), this.view));
-        getMonitorTasksMap().put(observationName.BLOOD.name(), new BloodMonitorTasks(getStorage(), this.view));
+        getMonitorTasksMap().put(observationName.CHOLESTEROL.name(), new CholesterolMonitorTasks(getStorage(), this.view, getRefreshEngine(), getRequestHandler()));
+        getMonitorTasksMap().put(observationName.BLOOD.name(), new BloodMonitorTasks(getStorage(), this.view, getRefreshEngine(), getRequestHandler()));
     }
     
     /**
@@ -56,20 +76,128 @@ public class MonitorTasksManager {
     }
     
     /**
-     * Updates all monitors (i.e. executes the update monitor task for all observation types).
+     * Updates the monitors which are due to be polled, as given by the poll schedule. Biometrics which are monitored but not in the schedule yet
+     * are due straight away, and biometrics which are no longer monitored are removed from it. The view is updated once after every due monitor
+     * has been updated.
+     * In DELTA refresh mode a single search covers every monitor of an observation type, so all monitors of a type are updated whenever any of them is due.
+     * @return Long - time the next monitor is due in epoch milliseconds, null if there are no monitors.
      */
-    public void updateAllMonitors(){
+    public Long updateDueMonitors(){
+        long now = System.currentTimeMillis();
+        // 1. Bring the schedule in line with the monitored biometrics
+        Set<String> monitoredKeys = new HashSet();
+        for (MonitorTasks tasks : getMonitorTasksMap().values()) {
+            BiometricIterator it = tasks.getBiometricsContainer().getIterator();
+            while (it.hasNext()) {
+                String key = it.next().getKey();
+                monitoredKeys.add(key);
+                getPollSchedule().add(key, now);
+            }
+        }
+        getPollSchedule().retain(monitoredKeys);
+        getAdaptiveBackoff().retain(monitoredKeys);
+        getRefreshEngine().retainKeys(monitoredKeys);
+        
+        // 2. Update the due monitors of each observation type, publishing the changes to the view together
+        Set<String> due = getPollSchedule().pollDue(now);
+        this.view.beginUpdateBatch();
+        try {
+            for (MonitorTasks tasks : getMonitorTasksMap().values()) {
+                BiometricContainer all = tasks.getBiometricsContainer();
+                BiometricContainer dueContainer = new BiometricContainer();
+                Map<String, String> previousTimes = new HashMap();
+                BiometricIterator it = all.getIterator();
+                while (it.hasNext()) {
+                    Map.Entry<String, Biometric> biometric = it.next();
+                    if (due.contains(biometric.getKey())) {
+                        dueContainer.put(biometric.getKey(), biometric.getValue());
+                        previousTimes.put(biometric.getKey(), biometric.getValue().getEffectiveDateTime());
+                    }
+                }
+                if (!dueContainer.isEmpty()) {
+                    Boolean updated = false;
+                    try {
+                        tasks.updateMonitors(getRefreshEngine().getRefreshMode() == RefreshMode.DELTA ? all : dueContainer);
+                        updated = true;
+                    } catch (RuntimeException ex) {
+                        // A failure of one observation type must not stop the others from updating
+                        Logger.getLogger(MonitorTasksManager.class.getName()).log(Level.WARNING, "Could not update due monitors", ex);
+                    }
+                    // 3. Adapt when each due monitor is next polled to what its poll found
+                    adaptPolling(tasks, dueContainer, previousTimes, updated, now);
+                }
+            }
+        }
+        finally {
+            this.view.endUpdateBatch();
+        }
+        return getPollSchedule().nextDue();
+    }
+    
+    /**
+     * Reschedules polled monitors with the interval worked out by the adaptive backoff: sooner for monitors needing attention, later for stable ones
+     * and later still for ones whose data has stopped changing. A failed poll says nothing about whether the data has changed, so monitors whose poll
+     * failed are polled at their base interval again rather than backed off, and pick up where they left off as soon as the FHIR server recovers.
+     * @param tasks MonitorTasks - tasks of the monitors' observation type.
+     * @param polled BiometricContainer - polled monitors.
+     * @param previousTimes Map<String, String> - <key, observation time before the poll>.
+     * @param updated Boolean - False if the update of the monitors failed as a whole.
+     * @param now long - time of the poll in epoch milliseconds.
+     */
+    private void adaptPolling(MonitorTasks tasks, BiometricContainer polled, Map<String, String> previousTimes, Boolean updated, long now){
+        BiometricIterator it = polled.getIterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Biometric> biometric = it.next();
+            if (!updated || getRefreshEngine().hasFailed(biometric.getKey())) {
+                // pollDue has already scheduled the monitor one base interval from now
+                getAdaptiveBackoff().reset(biometric.getKey());
+                continue;
+            }
+            String time = biometric.getValue().getEffectiveDateTime();
+            Boolean changed = (time != null && !time.equals(previousTimes.get(biometric.getKey())));
+            long interval = getAdaptiveBackoff().nextInterval(biometric.getKey(), getPollSchedule().getInterval(biometric.getKey()),
+                    tasks.needsAttention(biometric.getValue()), changed);
+            getPollSchedule().reschedule(biometric.getKey(), now + interval);
+        }
+    }
+    
+    /**
+     * Polls every monitor at no more than its base interval again, e.g. after the thresholds have changed and monitors which were stable may need attention.
+     */
+    public void resetAdaptivePolling(){
+        getAdaptiveBackoff().reset();
+        getPollSchedule().bringForward(System.currentTimeMillis());
+    }
+    
+    /**
+     * Updates the interval at which the monitors of each observation type are polled to the update frequency times the type's interval multiplier,
+     * e.g. so that cholesterol is polled less often than blood pressure.
+     * @param freq Integer - update frequency in seconds.
+     */
+    private void updateTypeIntervals(Integer freq){
         for (Map.Entry<String, MonitorTasks> o : getMonitorTasksMap().entrySet()) {
-            o.getValue().updateMonitors();
+            Integer multiplier = o.getValue().getIntervalMultiplier();
+            updateTypeInterval(o.getKey(), multiplier == 1 ? null : freq * multiplier);
         }
     }
     
+    /**
+     * Updates the interval at which the monitors of an observation type are polled.
+     * @param observationName String - observation name e.g. "CHOLESTEROL".
+     * @param interval Integer - interval in seconds, or null to use the update frequency.
+     */
+    private void updateTypeInterval(String observationName, Integer interval){
+        getPollSchedule().setCodeInterval(getObservationCodes().getCode(observationName), interval, System.currentTimeMillis());
+    }
+    
     /**
      * Add a monitor for the corresponding observation.
      * @param key String - key to obtain the biometric.
      */
     public void addMonitor(String key){
         selectMonitorType(key.split(",")[0]).addMonitor(key);
+        // The monitor has just been filled in, so it is not due until one interval from now
+        getPollSchedule().add(key, System.currentTimeMillis() + getPollSchedule().getInterval(key));
     }
     
     /**
@@ -102,11 +230,26 @@ public class MonitorTasksManager {
         getScheduler().cancelFutureTask();
     }
     
+    /**
+     * Stops all scheduled updates and releases the threads used by them, e.g. when the dashboard is closed.
+     * A running update is allowed to finish.
+     */
+    public void shutdown(){
+        if (hasScheduledUpdate()) {
+            cancelScheduledUpdates();
+        }
+        getRefreshEngine().shutdown();
+    }
+    
     /**
      * Updates the frequency of the scheduler's scheduled updates.
      * @param freq Integer - frequency to update the scheduler to.
      */
     public void updateFrequency(Integer freq){
+        // Monitors which were backed off under the old frequency are brought forward, so a shorter frequency takes effect straight away
+        getAdaptiveBackoff().reset();
+        getPollSchedule().setDefaultInterval(freq, System.currentTimeMillis());
+        updateTypeIntervals(freq);
         getScheduler().updateFrequency(freq);
     }
     
@@ -141,4 +284,36 @@ public class MonitorTasksManager {
     public MonitorUpdateScheduler getScheduler(){
         return this.scheduler;
     }
+    
+    /**
+     * Get pollSchedule attribute.
+     * @return PollSchedule
+     */
+    public PollSchedule getPollSchedule(){
+        return this.pollSchedule;
+    }
+    
+    /**
+     * Get adaptiveBackoff attribute.
+     * @return AdaptiveBackoff
+     */
+    public AdaptiveBackoff getAdaptiveBackoff(){
+        return this.adaptiveBackoff;
+    }
+    
+    /**
+     * Get requestHandler attribute.
+     * @return RequestHandler
+     */
+    public RequestHandler getRequestHandler(){
+        return this.requestHandler;
+    }
+    
+    /**
+     * Get refreshEngine attribute.
+     * @return RefreshEngine
+     */
+    public RefreshEngine getRefreshEngine(){
+        return this.refreshEngine;
+    }
 }
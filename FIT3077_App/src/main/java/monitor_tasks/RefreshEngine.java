@@ -0,0 +1,508 @@
+package monitor_tasks;
+
+import deserialisation.ObservationEntry;
+import deserialisation.ObservationResponse;
+import iterator.BiometricContainer;
+import iterator.BiometricIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import model.Biometric;
+import javax.xml.ws.WebServiceException;
+import requests.RequestHandler;
+import requests.RequestPriority;
+
+/**
+ * RefreshEngine fetches the latest observation of every monitored patient in parallel through a bounded executor.
+ * The number of requests in flight at any time is capped by a configurable concurrency limit, and the results are only
+ * handed back once every request of the tick has completed, so that monitors can be updated together.
+ * In BATCHED mode, patients are grouped into chunks and each chunk is requested as a single FHIR batch Bundle.
+ * In DELTA mode, a high-water mark of the last change seen is kept for each observation code, and a tick only asks the FHIR server
+ * for the observations changed since then, so the cost of a tick follows the rate of change rather than the number of monitored patients.
+ * @author Bryan
+ */
+public class RefreshEngine {
+    public static final Integer DEFAULT_CONCURRENCY_LIMIT = 8;
+    public static final Integer DEFAULT_BATCH_SIZE = 50;
+    private static final String DELTA_PAGE_SIZE = "100";
+    private static final Integer DELTA_PAGE_LIMIT = 20;
+    private ThreadPoolExecutor executor;
+    private RefreshMode refreshMode = RefreshMode.PARALLEL;
+    private Integer batchSize = DEFAULT_BATCH_SIZE;
+    private volatile Boolean paced = false; // whether the requests of a tick are spread out at the background rate budget rather than sent at once
+    private Map<String, String> highWaterMarks = new ConcurrentHashMap(); // <observationCode, last updated instant of the latest change seen>
+    private Set<String> syncedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()); // keys fully refreshed since their code's high-water mark was set
+    private Set<String> failedKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()); // keys whose last refresh got no response
+
+    /**
+     * Constructor for RefreshEngine using the default concurrency limit.
+     */
+    public RefreshEngine() {
+        this(DEFAULT_CONCURRENCY_LIMIT);
+    }
+
+    /**
+     * Constructor for RefreshEngine.
+     * @param concurrencyLimit Integer - maximum number of requests sent to the FHIR server at the same time.
+     */
+    public RefreshEngine(Integer concurrencyLimit) {
+        this.executor = new ThreadPoolExecutor(concurrencyLimit, concurrencyLimit, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(RequestPriority.background(r), "monitor-refresh-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Let idle worker threads die between ticks
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetches the latest observation of every biometric in a container using the current refresh mode, and waits for all requests to complete.
+     * Only observations which may have changed since the last update are returned. A failed request is logged and left out of the result,
+     * so that the affected biometrics keep their last known value, and the affected keys are reported by hasFailed() until they are refreshed successfully.
+     * @param requestHandler RequestHandler - used to make the requests.
+     * @param container BiometricContainer - biometrics to refresh.
+     * @return Map<String, ObservationEntry> - <'observationCode,patientId' , latest observation entry>
+     */
+    public Map<String, ObservationEntry> fetchChanges(RequestHandler requestHandler, BiometricContainer container) {
+        if (getRefreshMode() == RefreshMode.DELTA) {
+            return fetchDelta(requestHandler, container);
+        }
+        Map<String, ObservationResponse> responses = (getRefreshMode() == RefreshMode.BATCHED) ? fetchLatestBatched(requestHandler, container) : fetchLatestIndividually(requestHandler, container);
+        recordFailures(container.getBiometrics().keySet(), responses);
+        return toLatestEntries(responses);
+    }
+
+    /**
+     * Records which of the refreshed keys got a response from the FHIR server and which did not. A stale response served in place of a failed
+     * request counts as a failure.
+     * @param refreshed Set<String> - keys which were refreshed.
+     * @param responses Map<String, ObservationResponse> - <'observationCode,patientId' , observation response>
+     */
+    private void recordFailures(Set<String> refreshed, Map<String, ObservationResponse> responses) {
+        for (String key : refreshed) {
+            ObservationResponse response = responses.get(key);
+            if (response != null && !response.isStale()) {
+                getFailedKeys().remove(key);
+            }
+            else {
+                getFailedKeys().add(key);
+            }
+        }
+    }
+
+    /**
+     * Gets the latest entry of each response, leaving out responses which are not modified or have no entries.
+     * @param responses Map<String, ObservationResponse> - <'observationCode,patientId' , observation response>
+     * @return Map<String, ObservationEntry> - <'observationCode,patientId' , latest observation entry>
+     */
+    private Map<String, ObservationEntry> toLatestEntries(Map<String, ObservationResponse> responses) {
+        Map<String, ObservationEntry> entries = new HashMap();
+        for (Map.Entry<String, ObservationResponse> response : responses.entrySet()) {
+            if (!response.getValue().isNotModified() && response.getValue().hasEntry()) {
+                entries.put(response.getKey(), response.getValue().getLatestEntry());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Sends one conditional search per biometric concurrently. Biometrics whose observation has not changed get a response for which isNotModified() is true.
+     * Biometrics which have never been filled in get a plain search instead, as a validator stored by an earlier request for the same URL (e.g. when
+     * the patient was checked for the biometric) would otherwise get a 304 and leave them empty.
+     * @param requestHandler RequestHandler - used to make the GET requests.
+     * @param container BiometricContainer - biometrics to refresh.
+     * @return Map<String, ObservationResponse> - <'observationCode,patientId' , latest observation response>
+     */
+    private Map<String, ObservationResponse> fetchLatestIndividually(final RequestHandler requestHandler, BiometricContainer container) {
+        // 1. Submit one request per biometric, paced to the background rate budget
+        Map<String, Future<ObservationResponse>> futures = new HashMap();
+        long start = System.currentTimeMillis();
+        Integer index = 0;
+        BiometricIterator it = container.getIterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Biometric> biometric = it.next();
+            pace(requestHandler, index++, start);
+            final String patientId = biometric.getValue().getId();
+            final String observationCode = biometric.getValue().getCode();
+            final Boolean filled = (biometric.getValue().getEffectiveDateTime() != null);
+            futures.put(biometric.getKey(), getExecutor().submit(new Callable<ObservationResponse>() {
+                @Override
+                public ObservationResponse call() {
+                    return filled ? requestHandler.getLatestBiometricRequest(patientId, observationCode) : requestHandler.getBiometricRequest(patientId, observationCode, "1");
+                }
+            }));
+        }
+
+        // 2. Collect results once every request has completed
+        return awaitAll(futures);
+    }
+
+    /**
+     * Groups biometrics of the same observation code into chunks of batchSize patients, and sends one FHIR batch Bundle per chunk concurrently.
+     * The results of each batch are split back out to the biometric keys of the chunk.
+     * @param requestHandler RequestHandler - used to make the POST requests.
+     * @param container BiometricContainer - biometrics to refresh.
+     * @return Map<String, ObservationResponse> - <'observationCode,patientId' , latest observation response>
+     */
+    private Map<String, ObservationResponse> fetchLatestBatched(final RequestHandler requestHandler, BiometricContainer container) {
+        // 1. Group keys into chunks per observation code
+        Map<String, List<List<String>>> chunksByCode = new HashMap();
+        BiometricIterator it = container.getIterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Biometric> biometric = it.next();
+            String observationCode = biometric.getValue().getCode();
+            if (!chunksByCode.containsKey(observationCode)) {
+                chunksByCode.put(observationCode, new ArrayList<List<String>>());
+            }
+            List<List<String>> chunks = chunksByCode.get(observationCode);
+            if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size() >= getBatchSize()) {
+                chunks.add(new ArrayList<String>());
+            }
+            chunks.get(chunks.size() - 1).add(biometric.getKey());
+        }
+
+        // 2. Submit one batch request per chunk, paced to the background rate budget
+        Map<List<String>, Future<List<ObservationResponse>>> futures = new HashMap();
+        long start = System.currentTimeMillis();
+        Integer index = 0;
+        for (Map.Entry<String, List<List<String>>> code : chunksByCode.entrySet()) {
+            final String observationCode = code.getKey();
+            for (List<String> chunk : code.getValue()) {
+                pace(requestHandler, index++, start);
+                final List<String> patientIds = new ArrayList();
+                for (String key : chunk) {
+                    patientIds.add(key.split(",")[1]);
+                }
+                futures.put(chunk, getExecutor().submit(new Callable<List<ObservationResponse>>() {
+                    @Override
+                    public List<ObservationResponse> call() {
+                        return requestHandler.getBiometricBatchRequest(patientIds, observationCode, "1");
+                    }
+                }));
+            }
+        }
+
+        // 3. Split each batch response back out to the keys of its chunk. Batch entries are in the same order as the requests.
+        Map<String, ObservationResponse> responses = new HashMap();
+        for (Map.Entry<List<String>, List<ObservationResponse>> batch : awaitAll(futures).entrySet()) {
+            List<String> chunk = batch.getKey();
+            List<ObservationResponse> batchResponses = batch.getValue();
+            for (Integer i = 0; i < chunk.size() && i < batchResponses.size(); i++) {
+                if (batchResponses.get(i) != null) {
+                    responses.put(chunk.get(i), batchResponses.get(i));
+                }
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Refreshes biometrics with one search per observation code for the observations changed since the code's high-water mark.
+     * Biometrics which have not been fully refreshed since the mark was set (e.g. newly monitored ones) get a full refresh first.
+     * @param requestHandler RequestHandler - used to make the GET requests.
+     * @param container BiometricContainer - biometrics to refresh.
+     * @return Map<String, ObservationEntry> - <'observationCode,patientId' , latest changed observation entry>
+     */
+    private Map<String, ObservationEntry> fetchDelta(RequestHandler requestHandler, BiometricContainer container) {
+        // 1. Split biometrics into those already in sync (grouped by code), and those which need a full refresh
+        Map<String, Map<String, String>> syncedByCode = new HashMap(); // <observationCode, <patientId, key>>
+        BiometricContainer unsynced = new BiometricContainer();
+        BiometricIterator it = container.getIterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Biometric> biometric = it.next();
+            String observationCode = biometric.getValue().getCode();
+            if (getHighWaterMarks().containsKey(observationCode) && getSyncedKeys().contains(biometric.getKey())) {
+                if (!syncedByCode.containsKey(observationCode)) {
+                    syncedByCode.put(observationCode, new HashMap<String, String>());
+                }
+                syncedByCode.get(observationCode).put(biometric.getValue().getId(), biometric.getKey());
+            }
+            else {
+                unsynced.put(biometric.getKey(), biometric.getValue());
+            }
+        }
+
+        // 2. Set the high-water mark of a code before its first full refresh, so no change made during the refresh is missed
+        BiometricIterator unsyncedIt = unsynced.getIterator();
+        while (unsyncedIt.hasNext()) {
+            String observationCode = unsyncedIt.next().getValue().getCode();
+            if (!getHighWaterMarks().containsKey(observationCode)) {
+                try {
+                    String mark = requestHandler.getBiometricChangesRequest(observationCode, null, null).getMaxLastUpdated();
+                    if (mark != null) {
+                        getHighWaterMarks().put(observationCode, mark);
+                    }
+                } catch (WebServiceException ex) {
+                    Logger.getLogger(RefreshEngine.class.getName()).log(Level.WARNING, "Could not get high-water mark for " + observationCode, ex);
+                }
+            }
+        }
+
+        // 3. Fully refresh unsynced biometrics. They are in sync from now on if their code has a high-water mark and the server answered,
+        // rather than the request handler serving the last known result of a failed request.
+        Map<String, ObservationEntry> changes = new HashMap();
+        Map<String, ObservationResponse> responses = fetchLatestIndividually(requestHandler, unsynced);
+        recordFailures(unsynced.getBiometrics().keySet(), responses);
+        for (Map.Entry<String, ObservationResponse> response : responses.entrySet()) {
+            if (!response.getValue().isStale() && getHighWaterMarks().containsKey(response.getKey().split(",")[0])) {
+                getSyncedKeys().add(response.getKey());
+            }
+        }
+        changes.putAll(toLatestEntries(responses));
+
+        // 4. One search per code for the observations changed since the high-water mark
+        for (Map.Entry<String, Map<String, String>> code : syncedByCode.entrySet()) {
+            try {
+                changes.putAll(fetchDeltaForCode(requestHandler, code.getKey(), code.getValue(), container));
+                getFailedKeys().removeAll(code.getValue().values());
+            } catch (WebServiceException ex) {
+                getFailedKeys().addAll(code.getValue().values());
+                Logger.getLogger(RefreshEngine.class.getName()).log(Level.WARNING, "Could not get changed observations for " + code.getKey(), ex);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Pages through the observations of a code changed since its high-water mark, routing the latest change of each monitored patient to its key,
+     * then advances the high-water mark. Changes of patients who are not monitored are ignored.
+     * @param requestHandler RequestHandler - used to make the GET requests.
+     * @param observationCode String - observation code to search.
+     * @param keysByPatient Map<String, String> - <patientId, 'observationCode,patientId'> of the monitored patients.
+     * @param container BiometricContainer - biometrics being refreshed.
+     * @return Map<String, ObservationEntry> - <'observationCode,patientId' , latest changed observation entry>
+     */
+    private Map<String, ObservationEntry> fetchDeltaForCode(RequestHandler requestHandler, String observationCode, Map<String, String> keysByPatient, BiometricContainer container) {
+        Map<String, ObservationEntry> changes = new HashMap();
+        String mark = getHighWaterMarks().get(observationCode);
+        ObservationResponse page = requestHandler.getBiometricChangesRequest(observationCode, mark, DELTA_PAGE_SIZE);
+        Integer nPages = 1;
+        while (true) {
+            for (Map.Entry<String, ObservationEntry> latest : page.getLatestEntryByPatient().entrySet()) {
+                String key = keysByPatient.get(latest.getKey());
+                Biometric observation = container.get(key);
+                if (observation != null) {
+                    // A change to an older observation must not replace a more recent one
+                    String currentTime = changes.containsKey(key) ? changes.get(key).getTime() : observation.getEffectiveDateTime();
+                    String changedTime = latest.getValue().getTime();
+                    if (currentTime == null || !Biometric.toInstant(changedTime).isBefore(Biometric.toInstant(currentTime))) {
+                        changes.put(key, latest.getValue());
+                    }
+                }
+            }
+            // Changes are sorted from the oldest, so the mark can advance page by page
+            String pageMark = page.getMaxLastUpdated();
+            if (pageMark != null && (mark == null || Biometric.toInstant(pageMark).isAfter(Biometric.toInstant(mark)))) {
+                mark = pageMark;
+            }
+            // Stop at the page limit; the remaining changes are picked up from the advanced mark on the next update
+            if (!page.hasNextPage() || nPages >= DELTA_PAGE_LIMIT) {
+                break;
+            }
+            page = requestHandler.getObservationNextPageRequest(page);
+            nPages++;
+        }
+        getHighWaterMarks().put(observationCode, mark);
+        return changes;
+    }
+
+    /**
+     * Waits until it is time to submit a request, so that the requests of a tick go out evenly at the background rate of the request handler's
+     * rate limiter rather than as a burst which then queues up in the rate limiter. A tick therefore takes no longer than the rate budget requires.
+     * @param requestHandler RequestHandler - used to make the requests.
+     * @param index Integer - position of the request in the tick, from 0.
+     * @param start long - epoch milliseconds the first request was submitted.
+     */
+    private void pace(RequestHandler requestHandler, Integer index, long start) {
+        if (!isPaced() || index == 0 || Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        Double rate = requestHandler.getRetryPolicy().getRateLimiter().getBackgroundRate();
+        if (rate <= 0) {
+            return;
+        }
+        long wait = start + (long) (index * 1000 / rate) - System.currentTimeMillis();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException ex) {
+                // The remaining requests are submitted straight away and cancelled while waiting for them
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits for all submitted requests to complete. Failed requests are logged and left out of the result.
+     * If the waiting thread is interrupted (e.g. the scheduled update was cancelled), any outstanding requests are cancelled.
+     * @param futures Map<K, Future<V>> - submitted requests.
+     * @return Map<K, V> - results of the successful requests.
+     */
+    private <K, V> Map<K, V> awaitAll(Map<K, Future<V>> futures) {
+        Map<K, V> results = new HashMap();
+        for (Map.Entry<K, Future<V>> future : futures.entrySet()) {
+            try {
+                results.put(future.getKey(), future.getValue().get());
+            } catch (ExecutionException ex) {
+                Logger.getLogger(RefreshEngine.class.getName()).log(Level.WARNING, "Could not refresh " + future.getKey(), ex.getCause());
+            } catch (InterruptedException ex) {
+                // The tick was cancelled, so drop any requests which have not completed yet
+                for (Future<V> remaining : futures.values()) {
+                    remaining.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Changes the maximum number of requests sent to the FHIR server at the same time.
+     * @param concurrencyLimit Integer - new concurrency limit (must be at least 1).
+     */
+    public void setConcurrencyLimit(Integer concurrencyLimit) {
+        // The core size can never be larger than the maximum size, so the order of the updates depends on whether the pool grows or shrinks.
+        if (concurrencyLimit > getExecutor().getMaximumPoolSize()) {
+            getExecutor().setMaximumPoolSize(concurrencyLimit);
+            getExecutor().setCorePoolSize(concurrencyLimit);
+        }
+        else {
+            getExecutor().setCorePoolSize(concurrencyLimit);
+            getExecutor().setMaximumPoolSize(concurrencyLimit);
+        }
+    }
+
+    /**
+     * Gets the maximum number of requests sent to the FHIR server at the same time.
+     * @return Integer
+     */
+    public Integer getConcurrencyLimit() {
+        return getExecutor().getMaximumPoolSize();
+    }
+
+    /**
+     * Sets the way the latest observations are requested.
+     * @param refreshMode RefreshMode
+     */
+    public void setRefreshMode(RefreshMode refreshMode) {
+        this.refreshMode = refreshMode;
+    }
+
+    /**
+     * Gets refreshMode attribute.
+     * @return RefreshMode
+     */
+    public RefreshMode getRefreshMode() {
+        return this.refreshMode;
+    }
+
+    /**
+     * Sets the maximum number of patients requested in a single batch in BATCHED mode.
+     * @param batchSize Integer - must be at least 1.
+     */
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets batchSize attribute.
+     * @return Integer
+     */
+    public Integer getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Get highWaterMarks attribute.
+     * @return Map<String, String> - <observationCode, last updated instant of the latest change seen>
+     */
+    public Map<String, String> getHighWaterMarks() {
+        return this.highWaterMarks;
+    }
+
+    /**
+     * Get syncedKeys attribute.
+     * @return Set<String>
+     */
+    public Set<String> getSyncedKeys() {
+        return this.syncedKeys;
+    }
+
+    /**
+     * Forgets the biometrics which are no longer monitored, so they get a full refresh if they are monitored again.
+     * The container given to a tick may only hold the biometrics which are due, so this is done separately with every monitored key.
+     * @param monitoredKeys Set<String> - keys of every monitored biometric.
+     */
+    public void retainKeys(Set<String> monitoredKeys) {
+        getSyncedKeys().retainAll(monitoredKeys);
+        getFailedKeys().retainAll(monitoredKeys);
+    }
+
+    /**
+     * Checks if the last refresh of a biometric got no response e.g. because the FHIR server is down.
+     * @param key String - 'observationCode,patientId'.
+     * @return Boolean
+     */
+    public Boolean hasFailed(String key) {
+        return getFailedKeys().contains(key);
+    }
+
+    /**
+     * Get failedKeys attribute.
+     * @return Set<String>
+     */
+    public Set<String> getFailedKeys() {
+        return this.failedKeys;
+    }
+
+    /**
+     * Stops the worker threads once any submitted requests have completed.
+     */
+    public void shutdown() {
+        getExecutor().shutdown();
+    }
+
+    /**
+     * Changes whether the requests of a tick are paced to the background rate budget of the request handler, or sent at once.
+     * @param paced Boolean
+     */
+    public void setPaced(Boolean paced) {
+        this.paced = paced;
+    }
+
+    /**
+     * Get paced attribute.
+     * @return Boolean
+     */
+    public Boolean isPaced() {
+        return this.paced;
+    }
+
+    /**
+     * Get executor attribute.
+     * @return ThreadPoolExecutor
+     */
+    public ThreadPoolExecutor getExecutor() {
+        return this.executor;
+    }
+}
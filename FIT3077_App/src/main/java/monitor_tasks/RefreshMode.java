@@ -0,0 +1,13 @@
+package monitor_tasks;
+
+/**
+ * RefreshMode is an enum containing the ways a RefreshEngine can request the latest observations of monitored patients.
+ * PARALLEL sends one search per patient, while BATCHED groups patients into FHIR batch Bundles so that a tick costs one request per chunk of patients.
+ * DELTA sends one search per observation code for the observations changed since the previous update.
+ * @author Bryan
+ */
+public enum RefreshMode {
+    PARALLEL,
+    BATCHED,
+    DELTA
+}
@@ -9,7 +9,9 @@ package observer;
 public abstract class Observer {
     /**
      * Update the view to which this Observer is attached when this method is 
-     * called.
+     * called. Only the part of the view showing the changed Subject needs to be updated.
+     * 
+     * @param subject Subject - the Subject whose state changed, or null if any of the observed Subjects may have changed.
      */
-    public abstract void update();
+    public abstract void update(Subject subject);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package observer;
 
-import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implements the Subject component of an Observer pattern.
@@ -8,7 +9,8 @@ import java.util.HashSet;
  * @author Bryan
  */
 public class Subject {
-    protected HashSet<Observer> observers = new HashSet<Observer>();
+    // Observers may be attached and detached while another thread notifies them
+    protected Set<Observer> observers = ConcurrentHashMap.newKeySet();
 
     /**
      * Set an Observer to observe this Subject for state changes
@@ -18,13 +20,22 @@ public class Subject {
         this.observers.add(o);
     }
 
+    /**
+     * Stop an Observer from observing this Subject.
+     * @param o Observer - Observer to detach from this Subject
+     */
+    public void detach(Observer o) {
+        this.observers.remove(o);
+    }
+
     /**
      * Inform all attached Observers to update their state based on this 
-     * Subject's current state.
+     * Subject's current state. Each Observer is given this Subject, so it only
+     * has to update what this Subject changed.
      */
     public void notifyObservers() {
         for (Observer o : this.observers) {
-                o.update();
+                o.update(this);
         }
     }
-}
+}
\ No newline at end of file
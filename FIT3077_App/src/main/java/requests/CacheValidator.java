@@ -0,0 +1,45 @@
+package requests;
+
+/**
+ * CacheValidator stores the validators (ETag and Last-Modified headers) the FHIR server returned for a URL, so that the next
+ * GET request to the same URL can be made conditional.
+ * @author Bryan
+ */
+public class CacheValidator {
+    private String eTag;
+    private String lastModified;
+    
+    /**
+     * Constructor for CacheValidator.
+     * @param eTag String - value of the ETag response header, or null if there was none.
+     * @param lastModified String - value of the Last-Modified response header, or null if there was none.
+     */
+    public CacheValidator(String eTag, String lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+    
+    /**
+     * Checks if the server returned any validator.
+     * @return Boolean - True if there is an ETag or Last-Modified value, False if not
+     */
+    public Boolean hasValidator() {
+        return (getETag() != null || getLastModified() != null);
+    }
+    
+    /**
+     * Get eTag attribute.
+     * @return String
+     */
+    public String getETag() {
+        return this.eTag;
+    }
+    
+    /**
+     * Get lastModified attribute.
+     * @return String
+     */
+    public String getLastModified() {
+        return this.lastModified;
+    }
+}
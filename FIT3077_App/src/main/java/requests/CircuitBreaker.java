@@ -0,0 +1,87 @@
+package requests;
+
+/**
+ * CircuitBreaker stops requests from being sent to the FHIR server while it is unhealthy. After FAILURE_THRESHOLD failures in a row the
+ * circuit opens and requests fail fast without reaching the server. Once the open time has passed, a single trial request is let through:
+ * if it succeeds the circuit closes again, otherwise it stays open for another open time.
+ * @author Bryan
+ */
+public class CircuitBreaker {
+    public static final Integer DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Long DEFAULT_OPEN_TIME = 30000L;
+    private Integer failureThreshold;
+    private long openTime;
+    private Integer consecutiveFailures = 0;
+    private long openedAt = 0;
+    private Boolean open = false;
+    private Boolean trialInFlight = false;
+    
+    /**
+     * Constructor for CircuitBreaker using the default failure threshold and open time.
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIME);
+    }
+    
+    /**
+     * Constructor for CircuitBreaker.
+     * @param failureThreshold Integer - number of failures in a row which opens the circuit.
+     * @param openTime long - time in milliseconds the circuit stays open before a trial request is let through.
+     */
+    public CircuitBreaker(Integer failureThreshold, long openTime) {
+        this.failureThreshold = failureThreshold;
+        this.openTime = openTime;
+    }
+    
+    /**
+     * Checks if a request may be sent. While the circuit is open only one trial request is allowed once the open time has passed.
+     * @return Boolean - True if the request may be sent, False if it should fail fast.
+     */
+    public synchronized Boolean allowRequest() {
+        if (!this.open) {
+            return true;
+        }
+        if (!this.trialInFlight && System.currentTimeMillis() - this.openedAt >= this.openTime) {
+            this.trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Records a successful request, closing the circuit.
+     */
+    public synchronized void recordSuccess() {
+        this.consecutiveFailures = 0;
+        this.open = false;
+        this.trialInFlight = false;
+    }
+    
+    /**
+     * Records a failed request, opening the circuit if there have been too many failures in a row or a trial request failed.
+     */
+    public synchronized void recordFailure() {
+        this.consecutiveFailures++;
+        if (this.trialInFlight || this.consecutiveFailures >= this.failureThreshold) {
+            this.open = true;
+            this.openedAt = System.currentTimeMillis();
+        }
+        this.trialInFlight = false;
+    }
+    
+    /**
+     * Releases a trial request which ended without a success or failure being recorded, e.g. because its thread was interrupted,
+     * so that another trial request can be let through.
+     */
+    public synchronized void releaseTrial() {
+        this.trialInFlight = false;
+    }
+    
+    /**
+     * Checks if the circuit is open i.e. requests are failing fast.
+     * @return Boolean
+     */
+    public synchronized Boolean isOpen() {
+        return this.open;
+    }
+}
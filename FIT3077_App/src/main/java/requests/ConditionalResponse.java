@@ -0,0 +1,37 @@
+package requests;
+
+/**
+ * ConditionalResponse is the result of a conditional GET request. Either the server reported that the resource has not been
+ * modified since the previous request (HTTP 304), in which case there is no body to deserialise, or it returned a new body.
+ * @author Bryan
+ */
+public class ConditionalResponse<T> {
+    private Boolean notModified;
+    private T result;
+    
+    /**
+     * Constructor for ConditionalResponse.
+     * @param notModified Boolean - True if the server responded with 304 Not Modified.
+     * @param result T - deserialised response body, or null if not modified.
+     */
+    public ConditionalResponse(Boolean notModified, T result) {
+        this.notModified = notModified;
+        this.result = result;
+    }
+    
+    /**
+     * Checks if the resource has not changed since the previous request.
+     * @return Boolean
+     */
+    public Boolean isNotModified() {
+        return this.notModified;
+    }
+    
+    /**
+     * Get result attribute.
+     * @return T
+     */
+    public T getResult() {
+        return this.result;
+    }
+}
@@ -0,0 +1,126 @@
+package requests;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpClientSettings holds the tuning of the HTTP client shared by the program, and creates the client.
+ * Idle connections are kept alive in a connection pool so that later requests skip the TCP and TLS handshakes, HTTP/2 is offered so that
+ * concurrent requests can share one connection where the server supports it, and responses are transparently gzip-compressed as OkHttp asks
+ * for gzip itself whenever a request does not set its own Accept-Encoding header.
+ * @author Bryan
+ */
+public class HttpClientSettings {
+    public static final Integer DEFAULT_MAX_IDLE_CONNECTIONS = 8; // enough for every refresh request of a tick to keep its connection
+    public static final Integer DEFAULT_KEEP_ALIVE = 300;
+    public static final Integer DEFAULT_TIMEOUT = 30;
+    private Integer maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private Integer keepAlive = DEFAULT_KEEP_ALIVE;
+    private Integer connectTimeout = DEFAULT_TIMEOUT;
+    private Integer readTimeout = DEFAULT_TIMEOUT;
+    private Boolean http2Enabled = true;
+    
+    /**
+     * Creates an HTTP client with these settings.
+     * @param metrics HttpMetrics - records connection reuse and time to first byte of every request sent by the client.
+     * @return OkHttpClient
+     */
+    public OkHttpClient createClient(HttpMetrics metrics) {
+        OkHttpClient client = new OkHttpClient();
+        client.setConnectTimeout(getConnectTimeout(), TimeUnit.SECONDS); // connect timeout length if there is no server response
+        client.setReadTimeout(getReadTimeout(), TimeUnit.SECONDS);       // socket timeout length if there is no server response
+        client.setConnectionPool(new ConnectionPool(getMaxIdleConnections(), getKeepAlive(), TimeUnit.SECONDS));
+        if (getHttp2Enabled()) {
+            // HTTP/2 is only used if the server agrees to it during the TLS handshake, otherwise requests fall back to HTTP/1.1
+            client.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        }
+        else {
+            client.setProtocols(Arrays.asList(Protocol.HTTP_1_1));
+        }
+        client.networkInterceptors().add(metrics);
+        return client;
+    }
+    
+    /**
+     * Gets the maximum number of idle connections kept alive.
+     * @return Integer
+     */
+    public Integer getMaxIdleConnections() {
+        return this.maxIdleConnections;
+    }
+    
+    /**
+     * Sets the maximum number of idle connections kept alive.
+     * @param maxIdleConnections Integer - number of connections.
+     */
+    public void setMaxIdleConnections(Integer maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+    
+    /**
+     * Gets the time an idle connection is kept alive for.
+     * @return Integer - seconds.
+     */
+    public Integer getKeepAlive() {
+        return this.keepAlive;
+    }
+    
+    /**
+     * Sets the time an idle connection is kept alive for.
+     * @param keepAlive Integer - seconds.
+     */
+    public void setKeepAlive(Integer keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+    
+    /**
+     * Gets the connect timeout.
+     * @return Integer - seconds.
+     */
+    public Integer getConnectTimeout() {
+        return this.connectTimeout;
+    }
+    
+    /**
+     * Sets the connect timeout.
+     * @param connectTimeout Integer - seconds.
+     */
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    /**
+     * Gets the read timeout.
+     * @return Integer - seconds.
+     */
+    public Integer getReadTimeout() {
+        return this.readTimeout;
+    }
+    
+    /**
+     * Sets the read timeout.
+     * @param readTimeout Integer - seconds.
+     */
+    public void setReadTimeout(Integer readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+    
+    /**
+     * Checks if HTTP/2 is offered to the server.
+     * @return Boolean
+     */
+    public Boolean getHttp2Enabled() {
+        return this.http2Enabled;
+    }
+    
+    /**
+     * Sets whether HTTP/2 is offered to the server.
+     * @param http2Enabled Boolean
+     */
+    public void setHttp2Enabled(Boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+    }
+}
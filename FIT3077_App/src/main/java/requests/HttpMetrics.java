@@ -0,0 +1,92 @@
+package requests;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Response;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpMetrics is an OkHttp network interceptor which measures how well HTTP connections are reused and how long the FHIR server takes to respond.
+ * A request is counted as reusing a connection if an earlier request was sent over the same connection. Time to first byte is measured from
+ * sending the request until the response headers have been read.
+ * @author Bryan
+ */
+public class HttpMetrics implements Interceptor {
+    private AtomicLong requests = new AtomicLong(0);
+    private AtomicLong reusedConnections = new AtomicLong(0);
+    private AtomicLong totalTimeToFirstByte = new AtomicLong(0); // nanoseconds
+    private AtomicLong maxTimeToFirstByte = new AtomicLong(0);   // nanoseconds
+    private Set<Connection> seenConnections = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<Connection, Boolean>()));
+    
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Connection connection = chain.connection();
+        if (connection != null && !this.seenConnections.add(connection)) {
+            this.reusedConnections.incrementAndGet();
+        }
+        long start = System.nanoTime();
+        Response response = chain.proceed(chain.request());
+        long timeToFirstByte = System.nanoTime() - start;
+        this.requests.incrementAndGet();
+        this.totalTimeToFirstByte.addAndGet(timeToFirstByte);
+        long max = this.maxTimeToFirstByte.get();
+        while (timeToFirstByte > max && !this.maxTimeToFirstByte.compareAndSet(max, timeToFirstByte)) {
+            max = this.maxTimeToFirstByte.get();
+        }
+        return response;
+    }
+    
+    /**
+     * Gets the number of requests sent to the server.
+     * @return Long
+     */
+    public Long getRequestCount() {
+        return this.requests.get();
+    }
+    
+    /**
+     * Gets the number of requests which were sent over a connection used by an earlier request.
+     * @return Long
+     */
+    public Long getReusedConnectionCount() {
+        return this.reusedConnections.get();
+    }
+    
+    /**
+     * Gets the share of requests which were sent over a connection used by an earlier request.
+     * @return Double - between 0 and 1, 0 if no requests have been sent.
+     */
+    public Double getConnectionReuseRate() {
+        long count = this.requests.get();
+        return (count == 0) ? 0.0 : (double) this.reusedConnections.get() / count;
+    }
+    
+    /**
+     * Gets the mean time to first byte.
+     * @return Double - milliseconds, 0 if no requests have been sent.
+     */
+    public Double getMeanTimeToFirstByte() {
+        long count = this.requests.get();
+        return (count == 0) ? 0.0 : (double) this.totalTimeToFirstByte.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+    
+    /**
+     * Gets the longest time to first byte.
+     * @return Double - milliseconds.
+     */
+    public Double getMaxTimeToFirstByte() {
+        return (double) this.maxTimeToFirstByte.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d requests, %.1f%% on reused connections, time to first byte mean %.1f ms, max %.1f ms",
+                getRequestCount(), getConnectionReuseRate() * 100, getMeanTimeToFirstByte(), getMaxTimeToFirstByte());
+    }
+}
@@ -0,0 +1,97 @@
+package requests;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RateLimiter keeps the requests sent to the FHIR server under an agreed rate. Every request takes a token from the total budget, and
+ * background requests must also take a token from the smaller background budget, so scheduled refreshes can never use up the whole rate.
+ * Interactive requests always go first: background requests wait while any interactive request is waiting for a token.
+ * @author Bryan
+ */
+public class RateLimiter {
+    public static final Double DEFAULT_TOTAL_RATE = 20.0;
+    public static final Integer DEFAULT_TOTAL_BURST = 20;
+    public static final Double DEFAULT_BACKGROUND_RATE = 10.0;
+    public static final Integer DEFAULT_BACKGROUND_BURST = 10;
+    private static final long BACKGROUND_YIELD = TimeUnit.MILLISECONDS.toNanos(5);
+    private TokenBucket total = new TokenBucket(DEFAULT_TOTAL_RATE, DEFAULT_TOTAL_BURST);
+    private TokenBucket background = new TokenBucket(DEFAULT_BACKGROUND_RATE, DEFAULT_BACKGROUND_BURST);
+    private AtomicInteger interactiveWaiting = new AtomicInteger(0);
+    
+    /**
+     * Waits until a request of the current thread's priority may be sent.
+     * @throws InterruptedIOException if the thread was interrupted while waiting.
+     */
+    public void acquire() throws InterruptedIOException {
+        acquire(RequestPriority.current());
+    }
+    
+    /**
+     * Waits until a request of a given priority may be sent.
+     * @param priority RequestPriority - priority of the request.
+     * @throws InterruptedIOException if the thread was interrupted while waiting.
+     */
+    public void acquire(RequestPriority priority) throws InterruptedIOException {
+        if (priority == RequestPriority.INTERACTIVE) {
+            this.interactiveWaiting.incrementAndGet();
+            try {
+                take(this.total, false);
+            } finally {
+                this.interactiveWaiting.decrementAndGet();
+            }
+        }
+        else {
+            take(this.background, false);
+            take(this.total, true);
+        }
+    }
+    
+    /**
+     * Waits for a token from a bucket.
+     * @param bucket TokenBucket - bucket to take from.
+     * @param yieldToInteractive Boolean - whether to wait while interactive requests are waiting.
+     * @throws InterruptedIOException if the thread was interrupted while waiting.
+     */
+    private void take(TokenBucket bucket, Boolean yieldToInteractive) throws InterruptedIOException {
+        try {
+            while (true) {
+                long wait = (yieldToInteractive && this.interactiveWaiting.get() > 0) ? BACKGROUND_YIELD : bucket.tryTake();
+                if (wait == 0) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+        }
+    }
+    
+    /**
+     * Changes the agreed rate of all requests.
+     * @param rate Double - requests per second on average.
+     * @param burst Integer - largest burst of requests.
+     */
+    public void setTotalRate(Double rate, Integer burst) {
+        this.total.setRate(rate, burst);
+    }
+    
+    /**
+     * Changes the rate of background requests, which should be lower than the total rate to leave room for interactive requests.
+     * @param rate Double - requests per second on average.
+     * @param burst Integer - largest burst of requests.
+     */
+    public void setBackgroundRate(Double rate, Integer burst) {
+        this.background.setRate(rate, burst);
+    }
+    
+    /**
+     * Gets the rate of background requests.
+     * @return Double - requests per second on average.
+     */
+    public Double getBackgroundRate() {
+        return this.background.getRate();
+    }
+}
@@ -1,15 +1,28 @@
 package requests;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import java.io.IOException;
+import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.Response;
+import deserialisation.BatchRequestBundle;
+import deserialisation.BatchResponse;
+import deserialisation.EncounterEntryAdapterFactory;
 import deserialisation.EncounterResponse;
 import deserialisation.ObservationResponse;
 import deserialisation.PractitionerResponse;
 import java.io.UnsupportedEncodingException;
-import java.util.concurrent.TimeUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.ws.WebServiceException;
@@ -19,21 +32,49 @@ import model.Practitioner;
 
 /**
  * RequestHandler makes HTTP requests to the FHIR API server using an OkHTTP client (third-party library).
+ * JSON responses are deserialised with GSON straight from the response byte stream, without first reading the whole body into a String.
+ * One RequestHandler is shared by the whole program, so identical GET requests made at the same time or straight after each other
+ * are answered by one call through SingleFlight.
+ * Requests are sent through a RetryPolicy, which retries failed attempts with jittered backoff and fails fast through a CircuitBreaker while
+ * the server is unhealthy. Every attempt is kept under the agreed request rate by a RateLimiter, with interactive requests ahead of
+ * background ones (see RequestPriority). If a scheduled request for a patient's latest observation still fails, the last successful result of the same
+ * request is returned instead, marked as stale. Other requests are never answered with a previous result.
  * @author Bryan
  */
 public class RequestHandler {
     private OkHttpClient client;
     private Gson gson;
     private String rootUrl = "https://fhir.monash.edu/hapi-fhir-jpaserver/fhir";
+    private Map<String, CacheValidator> validators = new ConcurrentHashMap(); // <url, validators of the last successful response>
+    private SingleFlight singleFlight = new SingleFlight();
+    private HttpMetrics httpMetrics = new HttpMetrics();
+    private RetryPolicy retryPolicy = new RetryPolicy(new CircuitBreaker(), new RateLimiter());
+    private Map<String, ObservationResponse> lastKnown = Collections.synchronizedMap(new LinkedHashMap<String, ObservationResponse>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ObservationResponse> eldest) {
+            return size() > LAST_KNOWN_SIZE;
+        }
+    }); // <url, last successful latest observation response>, least recently used dropped first
+    private static final Integer LAST_KNOWN_SIZE = 512;
+    private static final MediaType FHIR_JSON = MediaType.parse("application/fhir+json; charset=utf-8");
     
     /**
-     * Constructor for RequestHandler.
+     * Constructor for RequestHandler using the default HTTP client settings.
      */
     public RequestHandler(){
-        client = new OkHttpClient();
-        client.setConnectTimeout(30, TimeUnit.SECONDS); // connect timeout length if there is no server response
-        client.setReadTimeout(30, TimeUnit.SECONDS);    // socket timeout length if there is no server response
-        gson = new Gson();
+        this(new HttpClientSettings());
+    }
+    
+    /**
+     * Constructor for RequestHandler.
+     * @param settings HttpClientSettings - tuning of the HTTP client e.g. connection pool size and keep-alive.
+     */
+    public RequestHandler(HttpClientSettings settings){
+        client = settings.createClient(getHttpMetrics());
+        // Encounter search entries may be Encounter or included Patient resources
+        gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new EncounterEntryAdapterFactory())
+                .create();
     }
     
     /**
@@ -49,9 +90,10 @@ public class RequestHandler {
                     .url(url)
                     .build();
             
-            Response response = getClient().newCall(request).execute();
+            Response response = getRetryPolicy().execute(getClient(), request);
             
             if (response.isSuccessful()) {
+                storeValidator(url, response);
                 return response.body().string();
             }
         } catch (IOException ex) {
@@ -60,12 +102,181 @@ public class RequestHandler {
         return null;
     }
     
+    /**
+     * Does a GET request to the FHIR server with a given URL, and deserialises the JSON response as it is streamed from the server.
+     * @param url String - URL to make a request to.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return T - Returns the deserialised response if the GET request is successful, or returns null if it is unsuccessful.
+     */
+    public <T> T getRequest(String url, final Class<T> type) {
+        final String fullUrl = getRootUrl() + url;
+        return getSingleFlight().execute(getRequestKey(fullUrl, type), new Callable<T>() {
+            @Override
+            public T call() {
+                return fetch(fullUrl, type);
+            }
+        });
+    }
+    
+    /**
+     * Makes a GET request to the FHIR server without coalescing it with identical requests.
+     * @param url String - full URL to make a request to.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return T - Returns the deserialised response if the GET request is successful, or returns null if it is unsuccessful.
+     */
+    private <T> T fetch(String url, Class<T> type) {
+        try {
+            Request request = new Request.Builder()
+                    .url(url)
+                    .build();
+            
+            Response response = getRetryPolicy().execute(getClient(), request);
+            
+            if (response.isSuccessful()) {
+                storeValidator(url, response);
+                return readBody(response, type);
+            }
+            response.body().close();
+        } catch (IOException | JsonParseException ex) {
+            Logger.getLogger(RequestHandler.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+    
+    /**
+     * Does a conditional GET request to the FHIR server with a given URL. If a previous response for the same URL had an ETag or
+     * Last-Modified header, it is sent back as If-None-Match or If-Modified-Since so the server can reply 304 Not Modified without a body.
+     * @param url String - URL to make a request to.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return ConditionalResponse<T> - Returns the response if the GET request is successful or not modified, or returns null if it is unsuccessful.
+     */
+    public <T> ConditionalResponse<T> getConditionalRequest(String url, final Class<T> type) {
+        final String fullUrl = getRootUrl() + url;
+        // A recent response to the same unconditional request is at least as new as anything the server could say now
+        T recent = getSingleFlight().peek(getRequestKey(fullUrl, type));
+        if (recent != null) {
+            return new ConditionalResponse<T>(false, recent);
+        }
+        ConditionalResponse<T> response = getSingleFlight().execute("If-None-Match " + getRequestKey(fullUrl, type), new Callable<ConditionalResponse<T>>() {
+            @Override
+            public ConditionalResponse<T> call() {
+                return fetchConditional(fullUrl, type);
+            }
+        });
+        if (response != null && !response.isNotModified()) {
+            getSingleFlight().remember(getRequestKey(fullUrl, type), response.getResult());
+        }
+        return response;
+    }
+    
+    /**
+     * Makes a conditional GET request to the FHIR server without coalescing it with identical requests.
+     * @param url String - full URL to make a request to.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return ConditionalResponse<T> - Returns the response if the GET request is successful or not modified, or returns null if it is unsuccessful.
+     */
+    private <T> ConditionalResponse<T> fetchConditional(String url, Class<T> type) {
+        try {
+            Request.Builder builder = new Request.Builder().url(url);
+            CacheValidator validator = getValidators().get(url);
+            if (validator != null) {
+                if (validator.getETag() != null) {
+                    builder.header("If-None-Match", validator.getETag());
+                }
+                if (validator.getLastModified() != null) {
+                    builder.header("If-Modified-Since", validator.getLastModified());
+                }
+            }
+            
+            Response response = getRetryPolicy().execute(getClient(), builder.build());
+            
+            if (response.code() == 304) {
+                response.body().close();
+                return new ConditionalResponse<T>(true, null);
+            }
+            if (response.isSuccessful()) {
+                storeValidator(url, response);
+                return new ConditionalResponse<T>(false, readBody(response, type));
+            }
+            response.body().close();
+        } catch (IOException | JsonParseException ex) {
+            Logger.getLogger(RequestHandler.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+    
+    /**
+     * Deserialises a JSON response body with GSON while it is read from the response byte stream. Fields which are not declared in the
+     * target class are skipped by the JsonReader without being built into objects. The body is always closed.
+     * @param response Response - successful response.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return T - deserialised response.
+     * @throws IOException if the body could not be read.
+     */
+    private <T> T readBody(Response response, Class<T> type) throws IOException {
+        JsonReader reader = new JsonReader(response.body().charStream());
+        try {
+            return getGson().fromJson(reader, type);
+        } finally {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Builds the key identifying a GET request in SingleFlight.
+     * @param url String - full URL of the request.
+     * @param type Class<?> - class the response is deserialised into.
+     * @return String
+     */
+    private String getRequestKey(String url, Class<?> type) {
+        return "GET " + url + " " + type.getName();
+    }
+    
+    /**
+     * Remembers the ETag and Last-Modified headers of a successful response, if the server sent any.
+     * @param url String - full URL of the request.
+     * @param response Response - successful response.
+     */
+    private void storeValidator(String url, Response response) {
+        CacheValidator validator = new CacheValidator(response.header("ETag"), response.header("Last-Modified"));
+        if (validator.hasValidator()) {
+            getValidators().put(url, validator);
+        }
+    }
+    
+    /**
+     * Does a POST request with a JSON body to the FHIR server with a given URL, and deserialises the JSON response as it is streamed from the server.
+     * @param url String - URL to make a request to.
+     * @param json String - JSON request body.
+     * @param type Class<T> - class to deserialise the response into.
+     * @return T - Returns the deserialised response if the POST request is successful, or returns null if it is unsuccessful.
+     */
+    public <T> T postRequest(String url, String json, Class<T> type) {
+        try {
+            // Makes a post request based on the url given.
+            url = getRootUrl() + url;
+            Request request = new Request.Builder()
+                    .url(url)
+                    .post(RequestBody.create(FHIR_JSON, json))
+                    .build();
+            
+            Response response = getRetryPolicy().execute(getClient(), request);
+            
+            if (response.isSuccessful()) {
+                return readBody(response, type);
+            }
+            response.body().close();
+        } catch (IOException | JsonParseException ex) {
+            Logger.getLogger(RequestHandler.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return null;
+    }
+    
     public Practitioner getPractitionerRequest (String practitionerId) {
         try {
             // Use RequestHandler to make a GET requestHandler to find the Practitioner resource based on their ID.
             String systemId = "http://hl7.org/fhir/sid/us-npi|" + practitionerId;
-            String practitionerData = getRequest("/Practitioner?identifier=" + URLEncoder.encode(systemId, "UTF-8"));
-            PractitionerResponse response = getGson().fromJson(practitionerData, PractitionerResponse.class);
+            PractitionerResponse response = getRequest("/Practitioner?identifier=" + URLEncoder.encode(systemId, "UTF-8"), PractitionerResponse.class);
             // If practitioner ID is invalid return null. Otherwise, de-serialise response.
             if (!response.hasPractitioner()) {
                 return null;
@@ -80,14 +291,13 @@ public class RequestHandler {
     
     public Patient getPatientRequest (String patientId){
         // Deserialise patient data
-        return getGson().fromJson(getRequest("/Patient/"+ patientId), Patient.class);
+        return getRequest("/Patient/"+ patientId, Patient.class);
     }
     
     public EncounterResponse getEncounterFirstPageRequest (String practitionerId){
         try {
-            String encounterData = getRequest("/Encounter?participant.identifier=" + URLEncoder.encode(practitionerId, "UTF-8") + "&_include=Encounter.participant.individual&_include=Encounter.patient&_count=50");
             // Deserialise encounter data
-            return getGson().fromJson(encounterData, EncounterResponse.class);
+            return getRequest("/Encounter?participant.identifier=" + URLEncoder.encode(practitionerId, "UTF-8") + "&_include=Encounter.participant.individual&_include=Encounter.patient&_count=50", EncounterResponse.class);
         } catch (UnsupportedEncodingException ex) {
             System.out.println("getEncounterFirstPageRequest error.");
             return null;
@@ -110,9 +320,8 @@ public class RequestHandler {
     
     public EncounterResponse getEncounterNextPageRequest (EncounterResponse prevEncounterResponse){
         String nextUrl = formatNextPageUrl(prevEncounterResponse.getNextPage());
-        String encounterData = getRequest(nextUrl);
         // Deserialise encounter data
-        return getGson().fromJson(encounterData, EncounterResponse.class);
+        return getRequest(nextUrl, EncounterResponse.class);
     }
     
     /**
@@ -122,11 +331,108 @@ public class RequestHandler {
      * @return ObservationResponse - The observation response as deserialised by GSON.
      */
     public ObservationResponse getBiometricRequest (String patientId, String observationCode, String count) {
-        String observationData = getRequest("/Observation?patient=" + patientId + "&code=" + observationCode + "&_sort=-date&_count=" + count);
-        if (observationData == null) {
+        ObservationResponse observationResponse = getRequest(getBiometricUrl(patientId, observationCode, count), ObservationResponse.class);
+        if (observationResponse == null) {
+            throw new WebServiceException("Error in retrieving observation data.");
+        }
+        return observationResponse;
+    }
+    
+    /**
+     * Makes a conditional GET request for a patient's latest observation. Used by scheduled updates, where most requests return the same data as the previous update.
+     * @param patientId String - The ID of the patient to be searched.
+     * @param observationCode String - The observation code for the biometric.
+     * @return ObservationResponse - The observation response as deserialised by GSON, or a response for which isNotModified() is true if the observation has not changed, in which case nothing is deserialised.
+     * If the request failed, the last successful response to it is returned with isStale() true.
+     */
+    public ObservationResponse getLatestBiometricRequest (String patientId, String observationCode) {
+        String url = getBiometricUrl(patientId, observationCode, "1");
+        ConditionalResponse<ObservationResponse> response = getConditionalRequest(url, ObservationResponse.class);
+        if (response == null) {
+            // Serve the last known observation while the server is failing, so the caller can keep showing it but knows it is out of date
+            ObservationResponse known = getLastKnown().get(url);
+            if (known != null) {
+                Logger.getLogger(RequestHandler.class.getName()).log(Level.WARNING, "Serving last known result of {0}", url);
+                return ObservationResponse.stale(known);
+            }
             throw new WebServiceException("Error in retrieving observation data.");
         }
-       return getGson().fromJson(observationData, ObservationResponse.class);
+        if (response.isNotModified()) {
+            return ObservationResponse.notModified();
+        }
+        getLastKnown().put(url, response.getResult());
+        return response.getResult();
+    }
+    
+    /**
+     * Searches for the observations of a given code, across all patients, which were changed on the FHIR server after a given instant.
+     * Results are sorted from the oldest change, so that a partially processed search can be resumed from the last change processed.
+     * @param observationCode String - The observation code for the biometric.
+     * @param since String - Only observations last updated strictly after this instant are returned. If null, the most recently updated observation is returned instead.
+     * @param count String - The maximum number of observations per page.
+     * @return ObservationResponse - The first page of changed observations as deserialised by GSON.
+     */
+    public ObservationResponse getBiometricChangesRequest (String observationCode, String since, String count) {
+        try {
+            String url = "/Observation?code=" + observationCode;
+            if (since == null) {
+                url += "&_sort=-_lastUpdated&_count=1";
+            }
+            else {
+                url += "&_lastUpdated=" + URLEncoder.encode("gt" + since, "UTF-8") + "&_sort=_lastUpdated&_count=" + count;
+            }
+            ObservationResponse observationResponse = getRequest(url, ObservationResponse.class);
+            if (observationResponse == null) {
+                throw new WebServiceException("Error in retrieving changed observation data.");
+            }
+            return observationResponse;
+        } catch (UnsupportedEncodingException ex) {
+            throw new WebServiceException("Error in retrieving changed observation data.", ex);
+        }
+    }
+    
+    /**
+     * Gets the next page of an observation search.
+     * @param prevObservationResponse ObservationResponse - The previous page, which must have a next page.
+     * @return ObservationResponse - The next page as deserialised by GSON.
+     */
+    public ObservationResponse getObservationNextPageRequest (ObservationResponse prevObservationResponse) {
+        ObservationResponse observationResponse = getRequest(formatNextPageUrl(prevObservationResponse.getNextPage()), ObservationResponse.class);
+        if (observationResponse == null) {
+            throw new WebServiceException("Error in retrieving observation data.");
+        }
+        return observationResponse;
+    }
+    
+    /**
+     * Builds the URL used to search for a patient's observations, sorted from the most recent.
+     * @param patientId String - The ID of the patient to be searched.
+     * @param observationCode String - The observation code for the biometric.
+     * @param count String - The maximum number of observations returned.
+     * @return String - URL relative to the root URL.
+     */
+    private String getBiometricUrl (String patientId, String observationCode, String count) {
+        return "/Observation?patient=" + patientId + "&code=" + observationCode + "&_sort=-date&_count=" + count;
+    }
+    
+    /**
+     * Gets the observations of several patients in a single round trip by posting a FHIR batch Bundle containing one search per patient.
+     * @param patientIds List<String> - The IDs of the patients to be searched.
+     * @param observationCode String - The observation code for the biometric.
+     * @param count String - The maximum number of observations returned per patient.
+     * @return List<ObservationResponse> - The observation response of each patient in the same order as patientIds. An element is null if that search failed.
+     */
+    public List<ObservationResponse> getBiometricBatchRequest (List<String> patientIds, String observationCode, String count) {
+        BatchRequestBundle bundle = new BatchRequestBundle();
+        for (String patientId : patientIds) {
+            bundle.addGetRequest("Observation?patient=" + patientId + "&code=" + observationCode + "&_sort=-date&_count=" + count);
+        }
+        // A batch is posted to the root URL of the FHIR server
+        BatchResponse batchResponse = postRequest("", getGson().toJson(bundle), BatchResponse.class);
+        if (batchResponse == null) {
+            throw new WebServiceException("Error in retrieving batched observation data.");
+        }
+        return batchResponse.getObservationResponses();
     }
     
     /**
@@ -145,6 +451,46 @@ public class RequestHandler {
         return this.client;
     }
     
+    /**
+     * Get httpMetrics attribute, which records connection reuse and time to first byte.
+     * @return HttpMetrics
+     */
+    public HttpMetrics getHttpMetrics(){
+        return this.httpMetrics;
+    }
+    
+    /**
+     * Get retryPolicy attribute
+     * @return RetryPolicy
+     */
+    public RetryPolicy getRetryPolicy(){
+        return this.retryPolicy;
+    }
+    
+    /**
+     * Get lastKnown attribute
+     * @return Map<String, ObservationResponse> - <url, last successful latest observation response>
+     */
+    private Map<String, ObservationResponse> getLastKnown(){
+        return this.lastKnown;
+    }
+    
+    /**
+     * Get singleFlight attribute
+     * @return SingleFlight
+     */
+    public SingleFlight getSingleFlight(){
+        return this.singleFlight;
+    }
+    
+    /**
+     * Get validators attribute
+     * @return Map<String, CacheValidator>
+     */
+    public Map<String, CacheValidator> getValidators(){
+        return this.validators;
+    }
+    
     /**
      * Get rootUrl attribute
      * @return String
@@ -0,0 +1,50 @@
+package requests;
+
+/**
+ * RequestPriority tells the RateLimiter whether requests made by a thread are interactive (made while the user waits e.g. login, tracking a
+ * patient or showing patient details) or background (scheduled refreshes). Threads are interactive unless marked as background, which is
+ * done once by the threads of the scheduler and the refresh engine.
+ * @author Bryan
+ */
+public enum RequestPriority {
+    INTERACTIVE,
+    BACKGROUND;
+    
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<RequestPriority>() {
+        @Override
+        protected RequestPriority initialValue() {
+            return INTERACTIVE;
+        }
+    };
+    
+    /**
+     * Gets the priority of requests made by the current thread.
+     * @return RequestPriority
+     */
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Sets the priority of requests made by the current thread.
+     * @param priority RequestPriority
+     */
+    public static void set(RequestPriority priority) {
+        CURRENT.set(priority);
+    }
+    
+    /**
+     * Wraps a Runnable so that the thread running it makes background requests e.g. for the threads of a ThreadFactory.
+     * @param r Runnable - runnable to wrap.
+     * @return Runnable
+     */
+    public static Runnable background(final Runnable r) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                set(BACKGROUND);
+                r.run();
+            }
+        };
+    }
+}
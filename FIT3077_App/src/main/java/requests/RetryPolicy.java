@@ -0,0 +1,192 @@
+package requests;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * RetryPolicy sends a request through a CircuitBreaker and a RateLimiter, retrying failed attempts with exponential backoff and full jitter within a deadline.
+ * An attempt fails if it throws an IOException, including a timeout, or the server answers 429 Too Many Requests or a 5xx error, other responses are returned
+ * straight away. The wait before retry n is a random time between 0 and min(MAX_BACKOFF, BASE_BACKOFF * 2^n), so clients which failed
+ * together do not retry together. If the failed response has a Retry-After header, the wait it asks for is used instead, up to MAX_BACKOFF.
+ * No retry is made if it could not start before the deadline.
+ * @author Bryan
+ */
+public class RetryPolicy {
+    public static final Integer DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Long BASE_BACKOFF = 500L;
+    public static final Long MAX_BACKOFF = 8000L;
+    public static final Long DEFAULT_DEADLINE = 45000L;
+    private Integer maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long deadline = DEFAULT_DEADLINE;
+    private CircuitBreaker circuitBreaker;
+    private RateLimiter rateLimiter;
+    
+    /**
+     * Constructor for RetryPolicy.
+     * @param circuitBreaker CircuitBreaker - shared by every request to the same server.
+     * @param rateLimiter RateLimiter - shared by every request to the same server, every attempt takes a token.
+     */
+    public RetryPolicy(CircuitBreaker circuitBreaker, RateLimiter rateLimiter) {
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+    }
+    
+    /**
+     * Sends a request, retrying if it fails.
+     * @param client OkHttpClient - client to send the request with.
+     * @param request Request - request to send.
+     * @return Response - the first response which is not a failure, or the failed response of the last attempt.
+     * @throws IOException if every attempt failed without a response, the deadline passed or the circuit is open.
+     */
+    public Response execute(OkHttpClient client, Request request) throws IOException {
+        long deadlineAt = System.currentTimeMillis() + this.deadline;
+        IOException lastException = null;
+        Long retryAfter = null; // wait asked for by the last failed response, in milliseconds
+        for (Integer attempt = 0; attempt < this.maxAttempts; attempt++) {
+            if (attempt > 0 && !backoff(attempt, deadlineAt, retryAfter)) {
+                break;
+            }
+            if (!getCircuitBreaker().allowRequest()) {
+                throw new IOException("Circuit open, not sending " + request.urlString());
+            }
+            Boolean recorded = false;
+            try {
+                getRateLimiter().acquire();
+                Response response = client.newCall(request).execute();
+                if (!isRetryable(response.code())) {
+                    getCircuitBreaker().recordSuccess();
+                    recorded = true;
+                    return response;
+                }
+                getCircuitBreaker().recordFailure();
+                recorded = true;
+                if (attempt == this.maxAttempts - 1) {
+                    return response;
+                }
+                retryAfter = parseRetryAfter(response.header("Retry-After"), System.currentTimeMillis());
+                response.body().close();
+                Logger.getLogger(RetryPolicy.class.getName()).log(Level.FINE, "Attempt {0} got HTTP {1}", new Object[]{attempt + 1, response.code()});
+            } catch (IOException ex) {
+                // A timeout is an InterruptedIOException too, but only a real interrupt should stop the retries
+                if (ex instanceof InterruptedIOException && !(ex instanceof SocketTimeoutException) && Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+                getCircuitBreaker().recordFailure();
+                recorded = true;
+                lastException = ex;
+                retryAfter = null;
+                Logger.getLogger(RetryPolicy.class.getName()).log(Level.FINE, "Attempt " + (attempt + 1) + " failed", ex);
+            } finally {
+                if (!recorded) {
+                    // The attempt ended without an outcome e.g. it was interrupted, so a trial request must not keep the circuit open
+                    getCircuitBreaker().releaseTrial();
+                }
+            }
+        }
+        throw (lastException != null) ? lastException : new IOException("Deadline passed for " + request.urlString());
+    }
+    
+    /**
+     * Waits before a retry.
+     * @param attempt Integer - number of the attempt about to be made, from 1.
+     * @param deadlineAt long - epoch milliseconds by which the request must have been sent.
+     * @param retryAfter Long - milliseconds the server asked to wait with a Retry-After header, or null for a jittered exponential backoff.
+     * @return Boolean - False if the retry could not start before the deadline, in which case there is no wait.
+     * @throws InterruptedIOException if the thread was interrupted while waiting.
+     */
+    private Boolean backoff(Integer attempt, long deadlineAt, Long retryAfter) throws InterruptedIOException {
+        long wait;
+        if (retryAfter != null) {
+            wait = Math.min(MAX_BACKOFF, retryAfter);
+        }
+        else {
+            long cap = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempt, 16));
+            wait = ThreadLocalRandom.current().nextLong(cap + 1);
+        }
+        if (System.currentTimeMillis() + wait >= deadlineAt) {
+            return false;
+        }
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+        return true;
+    }
+    
+    /**
+     * Reads the wait asked for by a Retry-After header, which is either a number of seconds or an HTTP date.
+     * @param value String - value of the header, or null if there is none.
+     * @param now long - current epoch milliseconds, to convert a date into a wait.
+     * @return Long - milliseconds to wait, at least 0, or null if there is no header or it cannot be read.
+     */
+    static Long parseRetryAfter(String value, long now) {
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0L, Math.min(Long.parseLong(value), Long.MAX_VALUE / 1000L) * 1000L);
+        } catch (NumberFormatException ex) {
+            // Not a number of seconds, so it should be a date
+        }
+        try {
+            return Math.max(0L, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - now);
+        } catch (DateTimeParseException ex) {
+            Logger.getLogger(RetryPolicy.class.getName()).log(Level.FINE, "Ignoring Retry-After header {0}", value);
+            return null;
+        }
+    }
+    
+    /**
+     * Checks if a response code means the attempt failed and may succeed if retried.
+     * @param code int - HTTP status code.
+     * @return Boolean
+     */
+    private Boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+    
+    /**
+     * Sets the maximum number of attempts per request.
+     * @param maxAttempts Integer - at least 1.
+     */
+    public void setMaxAttempts(Integer maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+    
+    /**
+     * Sets the time after which no more attempts are started.
+     * @param deadline long - milliseconds from the first attempt.
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Get rateLimiter attribute.
+     * @return RateLimiter
+     */
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+    
+    /**
+     * Get circuitBreaker attribute.
+     * @return CircuitBreaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+}
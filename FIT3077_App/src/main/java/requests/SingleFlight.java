@@ -0,0 +1,164 @@
+package requests;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * SingleFlight makes sure identical requests share one call to the FHIR server. A request made while an identical one is in flight waits for
+ * that call and gets the same result instead of making its own, and a successful result is kept for a short time to answer back-to-back
+ * duplicates e.g. checking a patient has an observation and then fetching it. Failed calls (null results or exceptions) are not kept.
+ * Results are shared between callers, so they must not be modified.
+ * @author Bryan
+ */
+public class SingleFlight {
+    public static final Long DEFAULT_TTL = 2000L;
+    private static final Integer PURGE_SIZE = 256;
+    private Map<String, FutureTask<Object>> inFlight = new ConcurrentHashMap();  // <request key, call in flight>
+    private Map<String, CachedResult> cache = new ConcurrentHashMap();           // <request key, recent successful result>
+    private volatile long ttl;
+    
+    /**
+     * Constructor for SingleFlight using the default time to live.
+     */
+    public SingleFlight() {
+        this(DEFAULT_TTL);
+    }
+    
+    /**
+     * Constructor for SingleFlight.
+     * @param ttl long - time in milliseconds a successful result is kept for. 0 turns the cache off, leaving only the coalescing of calls in flight.
+     */
+    public SingleFlight(long ttl) {
+        this.ttl = ttl;
+    }
+    
+    /**
+     * Gets the result of a request, from a recent identical request, from an identical call in flight, or by making the call.
+     * @param key String - identifies the request e.g. the method and URL.
+     * @param call Callable<T> - makes the call, in the calling thread.
+     * @return T - result of the call, may be null if the call failed.
+     * @throws RuntimeException if the call threw a RuntimeException.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, final Callable<T> call) {
+        // 1. A recent result
+        CachedResult cached = this.cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > System.currentTimeMillis()) {
+                return (T) cached.result;
+            }
+            this.cache.remove(key, cached);
+        }
+        
+        // 2. An identical call in flight, or a new call made by this thread
+        FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return call.call();
+            }
+        });
+        FutureTask<Object> existing = this.inFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                this.inFlight.remove(key, task);
+            }
+        }
+        else {
+            task = existing;
+        }
+        
+        try {
+            Object result = task.get();
+            if (existing == null && result != null && this.ttl > 0) {
+                remember(key, result);
+            }
+            return (T) result;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    /**
+     * Forgets every recent result, so the next requests go to the server.
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+    
+    /**
+     * Gets a recent result without making a call.
+     * @param key String - identifies the request.
+     * @return T - the result, or null if there is no recent result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(String key) {
+        CachedResult cached = this.cache.get(key);
+        return (cached != null && cached.expiresAt > System.currentTimeMillis()) ? (T) cached.result : null;
+    }
+    
+    /**
+     * Keeps a successful result for the time to live, dropping expired results once there are many of them.
+     * Used for results which answer a request but were fetched by a different one.
+     * @param key String - identifies the request.
+     * @param result Object - result of the call.
+     */
+    public void remember(String key, Object result) {
+        if (this.ttl <= 0 || result == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (this.cache.size() >= PURGE_SIZE) {
+            Iterator<CachedResult> it = this.cache.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().expiresAt <= now) {
+                    it.remove();
+                }
+            }
+        }
+        this.cache.put(key, new CachedResult(result, now + this.ttl));
+    }
+    
+    /**
+     * Changes the time a successful result is kept for.
+     * @param ttl long - time in milliseconds, 0 turns the cache off.
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+        if (ttl <= 0) {
+            clear();
+        }
+    }
+    
+    /**
+     * Gets the time a successful result is kept for.
+     * @return long - time in milliseconds.
+     */
+    public long getTtl() {
+        return this.ttl;
+    }
+    
+    /**
+     * CachedResult is a successful result and the time it expires.
+     */
+    private static class CachedResult {
+        private final Object result;
+        private final long expiresAt;
+        
+        private CachedResult(Object result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
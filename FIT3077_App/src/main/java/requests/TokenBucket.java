@@ -0,0 +1,67 @@
+package requests;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenBucket allows a number of requests per second on average, with bursts of up to its capacity. Tokens are added continuously at the rate,
+ * up to the capacity, and each request takes one token.
+ * @author Bryan
+ */
+public class TokenBucket {
+    private double rate;      // tokens per nanosecond
+    private double capacity;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    
+    /**
+     * Constructor for TokenBucket. The bucket starts full.
+     * @param rate Double - requests per second on average.
+     * @param capacity Integer - largest burst of requests.
+     */
+    public TokenBucket(Double rate, Integer capacity) {
+        setRate(rate, capacity);
+        this.tokens = this.capacity;
+    }
+    
+    /**
+     * Takes a token if there is one.
+     * @return long - 0 if a token was taken, otherwise the time in nanoseconds until there will be one.
+     */
+    public synchronized long tryTake() {
+        refill();
+        if (this.tokens >= 1) {
+            this.tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - this.tokens) / this.rate));
+    }
+    
+    /**
+     * Changes the rate and capacity. Tokens above the new capacity are dropped.
+     * @param rate Double - requests per second on average.
+     * @param capacity Integer - largest burst of requests.
+     */
+    public synchronized void setRate(Double rate, Integer capacity) {
+        refill();
+        this.rate = rate / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, capacity);
+        this.tokens = Math.min(this.tokens, this.capacity);
+    }
+    
+    /**
+     * Gets the rate.
+     * @return Double - requests per second on average.
+     */
+    public synchronized Double getRate() {
+        return this.rate * TimeUnit.SECONDS.toNanos(1);
+    }
+    
+    /**
+     * Adds the tokens earned since the last refill.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.capacity, this.tokens + (now - this.refilledAt) * this.rate);
+        this.refilledAt = now;
+    }
+}
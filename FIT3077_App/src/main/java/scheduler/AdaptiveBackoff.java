@@ -0,0 +1,73 @@
+package scheduler;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AdaptiveBackoff works out how often each monitored biometric should be polled from what its recent polls found.
+ * A biometric which needs attention (e.g. over a threshold or rising toward it) is polled URGENT_DIVISOR times as often as its base interval.
+ * Otherwise its interval doubles with every stable poll up to MAX_BACKOFF times the base interval, and once its data has not changed for
+ * UNCHANGED_POLLS polls in a row it may back off up to UNCHANGED_MAX_BACKOFF times the base interval. A biometric which needs attention
+ * starts again from the base interval as soon as it is back to normal.
+ * @author Bryan
+ */
+public class AdaptiveBackoff {
+    public static final Integer URGENT_DIVISOR = 4;
+    public static final Integer MAX_BACKOFF = 8;
+    public static final Integer UNCHANGED_POLLS = 5;
+    public static final Integer UNCHANGED_MAX_BACKOFF = 32;
+    public static final Long MIN_INTERVAL = 5000L;
+    private Map<String, int[]> states = new ConcurrentHashMap(); // <'observationCode,patientId' , {stable polls, unchanged polls}>
+    
+    /**
+     * Records the result of a poll and works out the interval until the next poll.
+     * @param key String - 'observationCode,patientId'.
+     * @param baseInterval long - interval in milliseconds the biometric would be polled at without backing off.
+     * @param needsAttention Boolean - whether the biometric is over a threshold or trending toward it.
+     * @param changed Boolean - whether the poll found a new observation.
+     * @return long - interval until the next poll in milliseconds.
+     */
+    public long nextInterval(String key, long baseInterval, Boolean needsAttention, Boolean changed) {
+        int[] state = this.states.get(key);
+        if (state == null) {
+            state = new int[2];
+            this.states.put(key, state);
+        }
+        state[1] = changed ? 0 : state[1] + 1;
+        if (needsAttention) {
+            state[0] = 0;
+            return Math.max(Math.min(MIN_INTERVAL, baseInterval), baseInterval / URGENT_DIVISOR);
+        }
+        // The first stable poll keeps the base interval, each one after it doubles the interval up to the cap
+        long cap = (state[1] >= UNCHANGED_POLLS) ? UNCHANGED_MAX_BACKOFF : MAX_BACKOFF;
+        long factor = Math.min(1L << state[0], cap);
+        if (factor < cap) {
+            state[0]++;
+        }
+        return baseInterval * factor;
+    }
+    
+    /**
+     * Forgets the biometrics which are not in a set of keys e.g. those which are no longer monitored.
+     * @param keys Set<String> - keys to keep.
+     */
+    public void retain(Set<String> keys) {
+        this.states.keySet().retainAll(keys);
+    }
+    
+    /**
+     * Forgets a biometric, so it is polled at its base interval again e.g. after its last poll failed.
+     * @param key String - 'observationCode,patientId'.
+     */
+    public void reset(String key) {
+        this.states.remove(key);
+    }
+    
+    /**
+     * Forgets every biometric, so they are all polled at their base interval again e.g. after the thresholds have changed.
+     */
+    public void reset() {
+        this.states.clear();
+    }
+}
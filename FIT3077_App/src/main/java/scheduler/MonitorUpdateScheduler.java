@@ -1,15 +1,19 @@
 package scheduler;
 
-import monitor_tasks.MonitorTasksManager;
 import java.util.concurrent.TimeUnit;
+import monitor_tasks.MonitorTasksManager;
 
 /**
  * MonitorUpdateScheduler schedules an update for monitors to run every N seconds at a given frequency.
+ * Each tick only updates the monitors which are due in the poll schedule of the MonitorTasksManager, and the next tick runs when the next
+ * monitor is due, at most N seconds and at least MIN_TICK_INTERVAL seconds later.
  * @author Bryan
  */
 
 public class MonitorUpdateScheduler extends Scheduler {
+    public static final Integer MIN_TICK_INTERVAL = 1;
     private MonitorTasksManager monitorTasksManager;
+    private volatile Long nextDue = null; // epoch milliseconds the next monitor is due, null if unknown
     
     /**
      * Constructor for MonitorUpdateScheduler.
@@ -28,7 +32,7 @@ public class MonitorUpdateScheduler extends Scheduler {
             @Override
             public void run() {
                 try {
-                    getMonitorTasksManager().updateAllMonitors();
+                    nextDue = getMonitorTasksManager().updateDueMonitors();
 
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -36,7 +40,19 @@ public class MonitorUpdateScheduler extends Scheduler {
             }
         };
         // Schedule execution of Runnable instance 
-        this.futureTask = executor.scheduleAtFixedRate(this.getObservation, 0, this.frequency, TimeUnit.SECONDS);
+        start();
+    }
+    
+    @Override
+    protected long getTickInterval(long tickStart){
+        long interval = super.getTickInterval(tickStart);
+        Long due = this.nextDue;
+        if (due != null) {
+            long sinceTickStart = System.nanoTime() - tickStart;
+            long untilDue = TimeUnit.MILLISECONDS.toNanos(due - System.currentTimeMillis());
+            interval = Math.min(interval, Math.max(TimeUnit.SECONDS.toNanos(MIN_TICK_INTERVAL), sinceTickStart + untilDue));
+        }
+        return interval;
     }
     
     /**
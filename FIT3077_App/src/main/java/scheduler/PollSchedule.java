@@ -0,0 +1,219 @@
+package scheduler;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PollSchedule keeps the time each monitored biometric is next due to be polled, in a priority queue ordered by due time, so a tick only has to
+ * look at the biometrics which are due. The interval of a biometric is its own interval if one has been set, otherwise the interval of its
+ * observation code if one has been set, otherwise the default interval.
+ * Entries which are rescheduled or removed are left in the queue and skipped when they reach the head.
+ * @author Bryan
+ */
+public class PollSchedule {
+    private long defaultInterval;
+    private Map<String, Long> codeIntervals = new HashMap();   // <observationCode, interval in milliseconds>
+    private Map<String, Long> keyIntervals = new HashMap();    // <'observationCode,patientId' , interval in milliseconds>
+    private Map<String, DueEntry> entries = new HashMap();     // <'observationCode,patientId' , current entry in the queue>
+    private PriorityQueue<DueEntry> queue = new PriorityQueue();
+    
+    /**
+     * Constructor for PollSchedule.
+     * @param defaultInterval Integer - interval in seconds of biometrics without an interval of their own or of their observation code.
+     */
+    public PollSchedule(Integer defaultInterval) {
+        this.defaultInterval = TimeUnit.SECONDS.toMillis(defaultInterval);
+    }
+    
+    /**
+     * Adds a biometric to the schedule. Biometrics which are already scheduled keep their due time.
+     * @param key String - 'observationCode,patientId'.
+     * @param due long - time the biometric is first due in epoch milliseconds.
+     */
+    public synchronized void add(String key, long due) {
+        if (!this.entries.containsKey(key)) {
+            schedule(key, due);
+        }
+    }
+    
+    /**
+     * Removes the biometrics which are not in a set of keys e.g. those which are no longer monitored.
+     * @param keys Set<String> - keys to keep.
+     */
+    public synchronized void retain(Set<String> keys) {
+        Iterator<String> it = this.entries.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (!keys.contains(key)) {
+                it.remove();
+                this.keyIntervals.remove(key);
+            }
+        }
+        // Drop the skipped entries too once they make up most of the queue
+        if (this.queue.size() > 2 * this.entries.size() + 16) {
+            this.queue.clear();
+            this.queue.addAll(this.entries.values());
+        }
+    }
+    
+    /**
+     * Takes every biometric which is due, and schedules each of them again one interval from now.
+     * @param now long - current time in epoch milliseconds.
+     * @return Set<String> - keys of the due biometrics.
+     */
+    public synchronized Set<String> pollDue(long now) {
+        Set<String> due = new HashSet();
+        while (!this.queue.isEmpty() && this.queue.peek().due <= now) {
+            DueEntry entry = this.queue.poll();
+            if (this.entries.get(entry.key) == entry) {
+                due.add(entry.key);
+            }
+        }
+        for (String key : due) {
+            schedule(key, now + getInterval(key));
+        }
+        return due;
+    }
+    
+    /**
+     * Gets the time the next biometric is due.
+     * @return Long - epoch milliseconds, null if there are no biometrics in the schedule.
+     */
+    public synchronized Long nextDue() {
+        while (!this.queue.isEmpty()) {
+            DueEntry entry = this.queue.peek();
+            if (this.entries.get(entry.key) == entry) {
+                return entry.due;
+            }
+            this.queue.poll();
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the time a biometric is next due.
+     * @param key String - 'observationCode,patientId'.
+     * @return Long - epoch milliseconds, null if the biometric is not in the schedule.
+     */
+    public synchronized Long getDue(String key) {
+        DueEntry entry = this.entries.get(key);
+        return (entry != null) ? entry.due : null;
+    }
+    
+    /**
+     * Gets the interval a biometric is polled at.
+     * @param key String - 'observationCode,patientId'.
+     * @return long - interval in milliseconds.
+     */
+    public synchronized long getInterval(String key) {
+        Long interval = this.keyIntervals.get(key);
+        if (interval == null) {
+            interval = this.codeIntervals.get(key.split(",")[0]);
+        }
+        return (interval != null) ? interval : this.defaultInterval;
+    }
+    
+    /**
+     * Changes the interval of biometrics without an interval of their own or of their observation code.
+     * Biometrics which would now be due sooner, including ones which have been backed off, are brought forward.
+     * @param interval Integer - interval in seconds.
+     * @param now long - current time in epoch milliseconds.
+     */
+    public synchronized void setDefaultInterval(Integer interval, long now) {
+        this.defaultInterval = TimeUnit.SECONDS.toMillis(interval);
+        bringForward(now);
+    }
+    
+    /**
+     * Changes the interval of the biometrics of an observation code. Biometrics which would now be due sooner are brought forward.
+     * @param observationCode String - observation code e.g. "2093-3".
+     * @param interval Integer - interval in seconds, or null to use the default interval.
+     * @param now long - current time in epoch milliseconds.
+     */
+    public synchronized void setCodeInterval(String observationCode, Integer interval, long now) {
+        if (interval == null) {
+            this.codeIntervals.remove(observationCode);
+        }
+        else {
+            this.codeIntervals.put(observationCode, TimeUnit.SECONDS.toMillis(interval));
+        }
+        bringForward(now);
+    }
+    
+    /**
+     * Changes the interval of a single biometric. If the biometric would now be due sooner, it is brought forward.
+     * @param key String - 'observationCode,patientId'.
+     * @param interval Long - interval in milliseconds, or null to use the interval of its observation code.
+     * @param now long - current time in epoch milliseconds.
+     */
+    public synchronized void setKeyInterval(String key, Long interval, long now) {
+        if (interval == null) {
+            this.keyIntervals.remove(key);
+        }
+        else {
+            this.keyIntervals.put(key, interval);
+        }
+        DueEntry entry = this.entries.get(key);
+        if (entry != null && now + getInterval(key) < entry.due) {
+            schedule(key, now + getInterval(key));
+        }
+    }
+    
+    /**
+     * Moves the next poll of a biometric e.g. when its interval has been adapted to what its last poll found.
+     * Biometrics which are not in the schedule are ignored.
+     * @param key String - 'observationCode,patientId'.
+     * @param due long - epoch milliseconds.
+     */
+    public synchronized void reschedule(String key, long due) {
+        if (this.entries.containsKey(key)) {
+            schedule(key, due);
+        }
+    }
+    
+    /**
+     * Brings forward every biometric due later than one interval from now, undoing any backing off.
+     * @param now long - current time in epoch milliseconds.
+     */
+    public synchronized void bringForward(long now) {
+        for (DueEntry entry : new HashSet<DueEntry>(this.entries.values())) {
+            if (entry.due > now + getInterval(entry.key)) {
+                schedule(entry.key, now + getInterval(entry.key));
+            }
+        }
+    }
+    
+    /**
+     * Puts a biometric in the queue at a due time, replacing its previous entry.
+     * @param key String - 'observationCode,patientId'.
+     * @param due long - epoch milliseconds.
+     */
+    private void schedule(String key, long due) {
+        DueEntry entry = new DueEntry(key, due);
+        this.entries.put(key, entry);
+        this.queue.add(entry);
+    }
+    
+    /**
+     * DueEntry is the time a biometric is next due to be polled.
+     */
+    private static class DueEntry implements Comparable<DueEntry> {
+        private final String key;
+        private final long due;
+        
+        private DueEntry(String key, long due) {
+            this.key = key;
+            this.due = due;
+        }
+        
+        @Override
+        public int compareTo(DueEntry other) {
+            return Long.compare(this.due, other.due);
+        }
+    }
+}
@@ -1,26 +1,46 @@
 package scheduler;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * The Scheduler class schedules a task to be run every N seconds at a given frequency.
  * Also allows certain actions to be executed immediately despite the update frequency.
+ * 
+ * Each tick schedules the next one when it finishes, N seconds after it started, on the pool shared through SchedulerPool. A tick which takes
+ * longer than N seconds is followed by a single tick straight away rather than a queue of overdue ticks, and a tick which fires while another
+ * is still running is skipped. Frequency changes take effect from the next tick and never interrupt a running one. Every scheduled tick belongs
+ * to a generation, and a tick of an older generation neither runs nor schedules another, so there is only ever one chain of ticks.
  * @author Bryan
  */
 public abstract class Scheduler {
-    protected ScheduledExecutorService executor = Executors.newScheduledThreadPool(5);
+    protected ScheduledExecutorService executor = SchedulerPool.getExecutor();
     protected ScheduledFuture<?> futureTask;
     protected Runnable getObservation = null;
-    protected Integer frequency = 60;// Default frequency set to 30 seconds
+    protected volatile Integer frequency = 60;// Default frequency set to 60 seconds
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private Boolean started = false;
+    private long lastTickStart = System.nanoTime();
+    private long generation = 0; // incremented whenever the chain of ticks is restarted or cancelled, so ticks of an older chain stop
     
     /**
      * Initialises the Scheduler with a Runnable instance to be executed every initFrequency seconds.
      */
     public abstract void init();
     
+    /**
+     * Starts running the getObservation task, with the first tick straight away.
+     */
+    protected synchronized void start(){
+        this.started = true;
+        this.generation++;
+        scheduleTick(0);
+    }
+    
     /**
      * Gets the frequency.
      * @return Integer - frequency in seconds
@@ -30,32 +50,113 @@ public abstract class Scheduler {
     }
     
     /**
-     * Changes the frequency of the getObservation task. If there is currently a scheduled task, this must be removed, and replaced with a new task with the new frequency.
+     * Changes the frequency of the getObservation task. The next tick is moved to N seconds after the start of the last tick, using the new frequency.
+     * If a tick is running, it is left to finish and schedules the next tick with the new frequency itself.
      * @param updatedFrequency Integer - New frequency to update monitor data at.
      */
-    public void updateFrequency(Integer updatedFrequency){      
-        // 1. Cancel any currently running schedule
-        if (hasFutureTask()){
-            cancelFutureTask();
-        }
-        // 2. Set scheduler frequency to updated frequency
+    public synchronized void updateFrequency(Integer updatedFrequency){      
         this.frequency = updatedFrequency;
-        // 3. Run new scheduled task with updated frequency
-        this.futureTask = executor.scheduleAtFixedRate(this.getObservation, 0, this.frequency, TimeUnit.SECONDS);
+        // Only move a tick which has not started yet, a running tick picks up the new frequency when it finishes
+        if (hasFutureTask() && !this.running.get()) {
+            if (this.futureTask != null) {
+                this.futureTask.cancel(false);
+            }
+            this.generation++;
+            scheduleAfter(this.lastTickStart);
+        }
     }
     
     /**
-     * Cancel any currently scheduled task.
+     * Cancel any currently scheduled task. A running tick is not interrupted, but no further ticks are scheduled.
      */
-    public void cancelFutureTask(){
-        futureTask.cancel(true);
+    public synchronized void cancelFutureTask(){
+        this.started = false;
+        this.generation++;
+        if (this.futureTask != null) {
+            this.futureTask.cancel(false);
+            this.futureTask = null;
+        }
     }
     
     /**
      * Checks if there is currently a scheduled task (with a Runnable).
      * @return Boolean - Returns True if there is a scheduled task, returns False if there is no scheduled task.
      */
-    public Boolean hasFutureTask(){
-        return (futureTask != null);
+    public synchronized Boolean hasFutureTask(){
+        return this.started;
+    }
+    
+    /**
+     * Runs one tick of the getObservation task unless it belongs to an older chain of ticks or another tick is still running, then schedules the next tick.
+     * @param tickGeneration long - generation the tick was scheduled in.
+     */
+    private void runTick(long tickGeneration){
+        long tickStart = System.nanoTime();
+        synchronized (this) {
+            if (tickGeneration != this.generation) {
+                return;
+            }
+            if (!this.running.compareAndSet(false, true)) {
+                // The running tick is from an older chain and will not schedule another, so this chain carries on
+                Logger.getLogger(Scheduler.class.getName()).log(Level.FINE, "Skipped a tick as the previous tick is still running.");
+                scheduleAfter(tickStart);
+                return;
+            }
+            this.lastTickStart = tickStart;
+        }
+        try {
+            this.getObservation.run();
+        }
+        finally {
+            synchronized (this) {
+                this.running.set(false);
+                if (tickGeneration == this.generation) {
+                    scheduleAfter(tickStart);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the time from the start of a tick to the start of the next one. By default this is the frequency, subclasses may wake up sooner
+     * e.g. when something is due before then.
+     * @param tickStart long - System.nanoTime() at the start of the tick.
+     * @return long - interval in nanoseconds.
+     */
+    protected long getTickInterval(long tickStart){
+        return TimeUnit.SECONDS.toNanos(this.frequency);
+    }
+    
+    /**
+     * Schedules the next tick one tick interval after a tick started, or straight away if that time has passed.
+     * @param tickStart long - System.nanoTime() at the start of the tick.
+     */
+    private void scheduleAfter(long tickStart){
+        long delay = tickStart + getTickInterval(tickStart) - System.nanoTime();
+        if (delay < 0) {
+            Logger.getLogger(Scheduler.class.getName()).log(Level.FINE, "Tick overran its interval.");
+        }
+        scheduleTick(Math.max(0, delay));
+    }
+    
+    /**
+     * Schedules the next tick if the scheduler has not been cancelled or its pool shut down.
+     * @param delay long - delay in nanoseconds.
+     */
+    private void scheduleTick(long delay){
+        if (!this.started) {
+            return;
+        }
+        if (this.executor.isShutdown()) {
+            this.started = false;
+            return;
+        }
+        final long tickGeneration = this.generation;
+        this.futureTask = this.executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runTick(tickGeneration);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
     }
 }
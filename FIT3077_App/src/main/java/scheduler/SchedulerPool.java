@@ -0,0 +1,51 @@
+package scheduler;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import requests.RequestPriority;
+
+/**
+ * SchedulerPool holds the one thread pool shared by every Scheduler. The pool has a fixed number of named daemon threads, so the number of
+ * scheduler threads no longer grows with the number of schedulers. The pool lives until it is shut down at the end of a session, and a new
+ * pool is created the next time one is needed.
+ * @author Bryan
+ */
+public class SchedulerPool {
+    public static final Integer POOL_SIZE = 2;
+    private static ScheduledThreadPoolExecutor executor;
+    
+    /**
+     * Gets the shared pool, creating it if there is none or the previous one has been shut down.
+     * @return ScheduledExecutorService
+     */
+    public static synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = new ScheduledThreadPoolExecutor(POOL_SIZE, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(1);
+                
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(RequestPriority.background(r), "monitor-scheduler-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // Cancelled ticks are removed straight away, and ticks still waiting when the pool is shut down never run
+            executor.setRemoveOnCancelPolicy(true);
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        return executor;
+    }
+    
+    /**
+     * Shuts down the shared pool e.g. when the dashboard is closed. Ticks which are already running are allowed to finish, waiting ticks are dropped.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
@@ -1,19 +1,17 @@
 package view;
 
-import java.util.ArrayList;
-import model.Biometric;
 import model.ObservationName;
 import observer.Observer;
+import observer.Subject;
 
 /**
- * BiometricGraphMonitor is an Observer (related to graph monitors) that stores all observations for a single type of biometric. E.G. If it is observing Cholesterol
- * it will store all cholesterol observations. It updates the Dashboard view component any time a change is made to an
+ * BiometricGraphMonitor is an Observer (related to graph monitors) of a single type of biometric. E.G. If it is observing Cholesterol
+ * it observes all cholesterol observations. It updates the Dashboard view component any time a change is made to an
  * observation.
  * @author Bryan
  */
 public abstract class BiometricGraphMonitor extends Observer{
     protected DashboardView view;
-    protected ArrayList<Biometric> observations;
     protected ObservationName observationName;
     
     /**
@@ -22,8 +20,8 @@ public abstract class BiometricGraphMonitor extends Observer{
      */
     public BiometricGraphMonitor(DashboardView view){
         this.view = view;
-        this.observations = new ArrayList();
     }
     
-    public abstract void update();
+    @Override
+    public abstract void update(Subject subject);
 }
@@ -0,0 +1,57 @@
+package view;
+
+import model.Biometric;
+import observer.Subject;
+
+/**
+ * BiometricHistoryGraphMonitor is a subclass of BiometricGraphMonitor which monitors the history of a single biometric selected by the user
+ * i.e. updates the history line chart. Unlike the other graph monitors it only observes the biometric it is showing, so it is moved from
+ * biometric to biometric as the selection changes.
+ * @author Bryan
+ */
+public class BiometricHistoryGraphMonitor extends BiometricGraphMonitor{
+    private volatile Biometric observation;
+
+    /**
+     * Constructor for BiometricHistoryGraphMonitor.
+     * @param view - Dashboard view to be updated when observations are updated.
+     */
+    public BiometricHistoryGraphMonitor(DashboardView view) {
+        super(view);
+    }
+    
+    /**
+     * Starts monitoring a biometric, stopping monitoring of the previous one.
+     * @param observation Biometric - biometric to monitor, or null to stop monitoring.
+     */
+    public void show(Biometric observation) {
+        Biometric previous = this.observation;
+        if (previous == observation) {
+            return;
+        }
+        if (previous != null) {
+            previous.detach(this);
+        }
+        this.observation = observation;
+        if (observation != null) {
+            observation.attach(this);
+        }
+        view.updateHistoryGraph();
+    }
+    
+    /**
+     * Gets the monitored biometric.
+     * @return Biometric - null if no biometric is monitored.
+     */
+    public Biometric getObservation() {
+        return this.observation;
+    }
+    
+    @Override
+    public void update(Subject subject) {
+        // Only the monitored biometric is drawn, so changes to any other biometric are ignored
+        if (subject == null || subject == this.observation) {
+            view.updateHistoryGraph();
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package view;
 
-import model.Biometric;
-
 /**
- * BiometricTextMonitor is an Observer (related to text monitors) that stores all observations for a single type of biometric. E.G. If it is observing Cholesterol
- * it will store all cholesterol observations. It updates the Dashboard view component any time a change is made to an
- * observation.
+ * BiometricTextMonitor is an Observer (related to text monitors) of a single type of biometric. E.G. If it is observing Cholesterol
+ * it is attached to every cholesterol observation. Each time an observation changes, it updates only the row of that observation
+ * in the Dashboard view component.
  * @author Bryan
  */
 public abstract class BiometricTextMonitor extends BiometricGraphMonitor{
@@ -17,12 +15,4 @@ public abstract class BiometricTextMonitor extends BiometricGraphMonitor{
     public BiometricTextMonitor(DashboardView view) {
         super(view);
     }
-    /**
-     * Maintain a reference to a Biometric (subclass of Subject) when this method is called.
-     * 
-     * @param observation Biometric - The Biometric that this Observer will observe.
-     */
-    public void setObservation(Biometric observation) {
-        this.observations.add(observation);
-    }
 }
@@ -0,0 +1,108 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Biometric;
+import model.ObservationName;
+
+/**
+ * BloodTableModel is the table model of the blood pressure monitor table. It also keeps which rows are over the systolic and diastolic thresholds.
+ * @author Bryan
+ */
+public class BloodTableModel extends MonitorTableModel {
+    private ObservationName observationName;
+    private List<Boolean> systolicOver = new ArrayList<Boolean>();
+    private List<Boolean> diastolicOver = new ArrayList<Boolean>();
+    
+    /**
+     * Constructor for BloodTableModel.
+     */
+    public BloodTableModel() {
+        super(new String[]{"ID", "NAME", "SYSTOLIC BLOOD PRESSURE", "DIASTOLIC BLOOD PRESSURE", "TIME"});
+    }
+    
+    @Override
+    public void addRow(Biometric observation) {
+        this.systolicOver.add(false);
+        this.diastolicOver.add(false);
+        super.addRow(observation);
+    }
+    
+    @Override
+    protected void rowRemoved(int row) {
+        this.systolicOver.remove(row);
+        this.diastolicOver.remove(row);
+    }
+    
+    /**
+     * Checks if the systolic blood pressure of a row is over the threshold.
+     * @param row int - index of the row.
+     * @return Boolean
+     */
+    public Boolean isSystolicOver(int row) {
+        return this.systolicOver.get(row);
+    }
+    
+    /**
+     * Checks if the diastolic blood pressure of a row is over the threshold.
+     * @param row int - index of the row.
+     * @return Boolean
+     */
+    public Boolean isDiastolicOver(int row) {
+        return this.diastolicOver.get(row);
+    }
+    
+    /**
+     * Sets whether the blood pressures of a row are over the thresholds.
+     * @param row int - index of the row.
+     * @param systolicOver Boolean
+     * @param diastolicOver Boolean
+     */
+    public void setOverThreshold(int row, Boolean systolicOver, Boolean diastolicOver) {
+        this.systolicOver.set(row, systolicOver);
+        this.diastolicOver.set(row, diastolicOver);
+    }
+    
+    @Override
+    public Boolean isHighlighted(int row, int column) {
+        switch (column) {
+            case 1:
+                return isSystolicOver(row) || isDiastolicOver(row);
+            case 2:
+                return isSystolicOver(row);
+            case 3:
+                return isDiastolicOver(row);
+            default:
+                return false;
+        }
+    }
+    
+    @Override
+    protected Object getValueAt(Biometric observation, int row, int column) {
+        switch (column) {
+            case 0:
+                return observation.getId();
+            case 1:
+                return observation.getName();
+            case 2:
+                return formatComponent(observation, observationName.SYSTOLIC.name());
+            case 3:
+                return formatComponent(observation, observationName.DIASTOLIC.name());
+            default:
+                return (observation.getEffectiveDateTime() == null) ? "" : observation.getTime();
+        }
+    }
+    
+    /**
+     * Formats a component of a biometric with its own unit.
+     * @param observation Biometric - biometric.
+     * @param component String - component name e.g. "SYSTOLIC".
+     * @return String - empty until the observation has been filled in.
+     */
+    private String formatComponent(Biometric observation, String component) {
+        if (!observation.hasQuantity(component)) {
+            return "";
+        }
+        return formatQuantity(observation.getQuantity(component), observation.getUnit(component));
+    }
+}
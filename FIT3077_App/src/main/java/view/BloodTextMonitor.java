@@ -1,6 +1,7 @@
 package view;
 
 import model.Biometric;
+import observer.Subject;
 
 /**
  * BloodTextMonitor is a subclass of BiometricTextMonitor which monitors blood pressure.
@@ -17,10 +18,10 @@ public class BloodTextMonitor extends BiometricTextMonitor {
     }
     
     @Override
-    public void update() {
-        // Iterate over all observations and update them.
-        for (Biometric observation : observations) {
-            view.updateBloodTextMonitor(observation.getId(), observation.getQuantity(observationName.DIASTOLIC.name()), observation.getUnit(observationName.DIASTOLIC.name()), observation.getQuantity(observationName.SYSTOLIC.name()), observation.getUnit(observationName.SYSTOLIC.name()), observation.getTime());  
+    public void update(Subject subject) {
+        // Only update the row of the changed observation
+        if (subject instanceof Biometric) {
+            view.updateBloodTextMonitor((Biometric) subject);
         }
     } 
 }
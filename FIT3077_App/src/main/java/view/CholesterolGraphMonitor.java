@@ -1,5 +1,7 @@
 package view;
 
+import observer.Subject;
+
 /**
  * CholesterolGraphMonitor is a subclass of BiometricGraphMonitor which monitors cholesterol i.e. updates the graph.
  * @author Bryan
@@ -15,7 +17,8 @@ public class CholesterolGraphMonitor extends BiometricGraphMonitor{
     }
     
     @Override
-    public void update() {
+    public void update(Subject subject) {
+        // The bar chart shows every cholesterol observation, so it is redrawn whichever observation changed
         view.updateCholesterolBarChart();
     } 
 }
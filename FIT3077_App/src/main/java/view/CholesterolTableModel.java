@@ -0,0 +1,76 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.List;
+import model.Biometric;
+import model.ObservationName;
+
+/**
+ * CholesterolTableModel is the table model of the cholesterol monitor table. It also keeps which rows are above the average cholesterol.
+ * @author Bryan
+ */
+public class CholesterolTableModel extends MonitorTableModel {
+    private ObservationName observationName;
+    private List<Boolean> aboveAverage = new ArrayList<Boolean>();
+    
+    /**
+     * Constructor for CholesterolTableModel.
+     */
+    public CholesterolTableModel() {
+        super(new String[]{"ID", "NAME", "TOTAL CHOLESTEROL", "TIME"});
+    }
+    
+    @Override
+    public void addRow(Biometric observation) {
+        this.aboveAverage.add(false);
+        super.addRow(observation);
+    }
+    
+    @Override
+    protected void rowRemoved(int row) {
+        this.aboveAverage.remove(row);
+    }
+    
+    /**
+     * Checks if a row is highlighted as above the average.
+     * @param row int - index of the row.
+     * @return Boolean
+     */
+    public Boolean isAboveAverage(int row) {
+        return this.aboveAverage.get(row);
+    }
+    
+    /**
+     * Sets whether a row is highlighted as above the average.
+     * @param row int - index of the row.
+     * @param aboveAverage Boolean
+     */
+    public void setAboveAverage(int row, Boolean aboveAverage) {
+        this.aboveAverage.set(row, aboveAverage);
+    }
+    
+    @Override
+    public Boolean isHighlighted(int row, int column) {
+        // Name and quantity are highlighted
+        return (column == 1 || column == 2) && isAboveAverage(row);
+    }
+    
+    @Override
+    protected Object getValueAt(Biometric observation, int row, int column) {
+        String component = observationName.CHOLESTEROL.name();
+        switch (column) {
+            case 0:
+                return observation.getId();
+            case 1:
+                return observation.getName();
+            case 2:
+                // Empty until the observation has been filled in
+                if (!observation.hasQuantity(component)) {
+                    return "";
+                }
+                return formatQuantity(observation.getQuantity(component), observation.getUnit(component));
+            default:
+                return (observation.getEffectiveDateTime() == null) ? "" : observation.getTime();
+        }
+    }
+}
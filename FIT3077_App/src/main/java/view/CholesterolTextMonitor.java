@@ -1,6 +1,7 @@
 package view;
 
 import model.Biometric;
+import observer.Subject;
 
 /**
  * CholesterolTextMonitor is a subclass of BiometricTextMonitor which monitors cholesterol.
@@ -17,9 +18,10 @@ public class CholesterolTextMonitor extends BiometricTextMonitor{
     }
     
     @Override
-    public void update() {
-        for (Biometric observation : observations) {
-            view.updateCholesterolTextualMonitor(observation.getId(), observation.getQuantity(observationName.CHOLESTEROL.name()), observation.getUnit(observationName.CHOLESTEROL.name()), observation.getTime());  
+    public void update(Subject subject) {
+        // Only update the row of the changed observation
+        if (subject instanceof Biometric) {
+            view.updateCholesterolTextualMonitor((Biometric) subject);
         }
     } 
 }
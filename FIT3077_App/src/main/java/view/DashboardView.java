@@ -1,23 +1,31 @@
 package view;
 
-import iterator.BiometricIterator;
 import java.awt.Color;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.swing.JButton;
 import javax.swing.JPanel;
 import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.table.DefaultTableModel;
 import model.Biometric;
 import model.DashboardModel;
+import model.ComponentLayout;
+import model.ObservationHistory;
 import model.ObservationName;
 import model.ObserveStorage;
 import model.Patient;
+import model.PatientListListener;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 
 /**
  * The view class of the dashboard feature.
@@ -42,7 +50,23 @@ public class DashboardView extends javax.swing.JFrame {
     private ObservationName observationName;
     private MonitorSelector monitorSelector = new MonitorSelector(this);
     // For bar chart
+    private static final String CHART_ROW_KEY = "Quantity";
+    private static final Integer HISTORY_PIXELS_PER_POINT = 2;
     private DefaultCategoryDataset cholesterolDcd = new DefaultCategoryDataset();
+    private JFreeChart cholesterolChart;
+    private Map<String, String> cholesterolChartColumns = new HashMap(); // <patientId, column key in cholesterolDcd>
+    // For history line chart
+    private XYSeriesCollection historyDataset = new XYSeriesCollection();
+    private JFreeChart historyChart;
+    private ChartPanel historyChartPanel;
+    private Biometric historyObservation; // biometric whose series are in historyDataset
+    private long[] historyTimes = new long[0];
+    private double[] historyQuantities = new double[0];
+    private long[] historyTimesOut = new long[0];
+    private double[] historyQuantitiesOut = new double[0];
+    private CholesterolTableModel cholesterolTableModel = new CholesterolTableModel();
+    private BloodTableModel bloodTableModel = new BloodTableModel();
+    private UpdateBatcher updateBatcher = new UpdateBatcher(this);
     
     /**
      * Constructor for DashboardView.
@@ -596,9 +620,36 @@ public class DashboardView extends javax.swing.JFrame {
         this.setVisible(true);
         hideUpdateOptions(); //Only show update frequency button if there is a monitor.
         displayPractitioner();
+        initMonitorTables();
+        initCholesterolBarChart();
+        initHistoryChart();
         listPatients();
     }
     
+    /**
+     * Replace the table models of the monitor tables with models backed by the tracked biometrics, keeping the column layout.
+     * Highlighted cells are coloured by a renderer: red for cholesterol above the average, purple for blood pressure over the threshold.
+     */
+    private void initMonitorTables() {
+        cholesterolTable.setModel(getCholesterolTableModel());
+        cholesterolTable.setDefaultRenderer(String.class, new HighlightCellRenderer(Color.red));
+        cholesterolTable.getColumnModel().getColumn(0).setResizable(false);
+        cholesterolTable.getColumnModel().getColumn(0).setPreferredWidth(10);
+        cholesterolTable.getColumnModel().getColumn(1).setResizable(false);
+        cholesterolTable.getColumnModel().getColumn(2).setResizable(false);
+        cholesterolTable.getColumnModel().getColumn(3).setResizable(false);
+        cholesterolTable.getColumnModel().getColumn(3).setPreferredWidth(120);
+        
+        bloodTable.setModel(getBloodTableModel());
+        bloodTable.setDefaultRenderer(String.class, new HighlightCellRenderer(new Color(128, 0, 128)));
+        bloodTable.getColumnModel().getColumn(0).setResizable(false);
+        bloodTable.getColumnModel().getColumn(0).setPreferredWidth(10);
+        bloodTable.getColumnModel().getColumn(1).setResizable(false);
+        bloodTable.getColumnModel().getColumn(2).setResizable(false);
+        bloodTable.getColumnModel().getColumn(4).setResizable(false);
+        bloodTable.getColumnModel().getColumn(4).setPreferredWidth(120);
+    }
+    
     /**
      * Set the displayed text for the practitionerNameLabel element to show which Practitioner is currently logged in.
      */
@@ -609,20 +660,37 @@ public class DashboardView extends javax.swing.JFrame {
     
     /**
      * Populate the patientTable element with a list of patients retrieved from 
-     * the DashboardModel associated with this instance.
+     * the DashboardModel associated with this instance. Patients are loaded in the background
+     * and a row is added as soon as each patient is loaded.
      */
     private void listPatients() {
-        // Get patient data from Dashboard Model, then create a row in the table
-        // for each patient
-        DefaultTableModel tableModel= (DefaultTableModel) patientTable.getModel();
-        Map<String, Patient> patients = getModel().getPatients();
-        
-        for (Map.Entry<String, Patient> patient: patients.entrySet()) {
-            String id = patient.getKey();
-            String givenName = patient.getValue().getGivenName();
-            String familyName = patient.getValue().getFamilyName();
-            tableModel.addRow(new Object[]{id, givenName, familyName, ""});
-        }
+        // Create a row in the table for each patient as the Dashboard Model loads them
+        getModel().loadPatients(new PatientListListener() {
+            @Override
+            public void patientsLoaded(final List<Patient> patients) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        DefaultTableModel tableModel= (DefaultTableModel) patientTable.getModel();
+                        for (Patient patient : patients) {
+                            tableModel.addRow(new Object[]{patient.getId(), patient.getGivenName(), patient.getFamilyName(), ""});
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void loadingFinished(final Boolean truncated) {
+                if (truncated) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            setPatientErrorText("Only the first " + getModel().getPageBudget() + " pages of encounters were loaded, so some patients may be missing.");
+                        }
+                    });
+                }
+            }
+        });
     }
     
     /**
@@ -755,133 +823,295 @@ public class DashboardView extends javax.swing.JFrame {
     }
     
     /**
-     * Add a row associated with the argument values into the respective table of patient observations.
+     * Add a row for a biometric into the respective table of patient observations. The row shows the biometric's values,
+     * and is empty until the biometric has been filled in.
      * 
-     * @param btnText String - The label text of the button for the selected monitor.
-     * @param patientFullName String - The patientFullName of the patient to add to the monitor.
-     * @param patientId String - The patient's id.
+     * @param observationName String - Name of the observation type e.g. "CHOLESTEROL".
+     * @param observation Biometric - The biometric to add to the monitor.
      */
-    public void addMonitorTemplate(String observationName, String patientFullName, String patientId){
+    public void addMonitorTemplate(String observationName, Biometric observation){
         // if statements are needed as view would need to know which table we are addding the monitor to
-        // Get observation data for particular patient from Dashboard Model, then create a row in the table for the patient
-        DefaultTableModel tableModel= null;
         if (observationName.equals(getObservationName().CHOLESTEROL.name())) {
-            tableModel= (DefaultTableModel) cholesterolTable.getModel();
-            tableModel.addRow(new Object[]{patientId, patientFullName, "", ""});
+            getCholesterolTableModel().addRow(observation);
         }
         else if (observationName.equals(getObservationName().BLOOD.name())) {
-            tableModel= (DefaultTableModel) bloodTable.getModel();
-            tableModel.addRow(new Object[]{patientId, patientFullName, "", "", ""});
+            getBloodTableModel().addRow(observation);
         }
     }
     
     /**
-     * Update the cholesterol textual monitor.
-     * Search the table for the row containing the patient with the associated id and update that row.
+     * Update the cholesterol textual monitor. May be called from any thread, the row is updated on the event dispatch thread
+     * together with every other change in the same batch.
      * 
-     * @param id String - The patient id.
-     * @param updatedQuantity String - Updated biometric value to display in Dashboard.
-     * @param unit String - The unit of the biometric value.
-     * @param updatedTime String - The time at which the record was updated.
-     */
-    public void updateCholesterolTextualMonitor(String id, String updatedQuantity, String unit, String updatedTime){
-        // Update table
-        DefaultTableModel tableModel= null;
-        Integer idColumnIndex = 0;
-        Integer quantityIndex = 2;
-        Integer timeIndex = 3;
-        tableModel= (DefaultTableModel) cholesterolTable.getModel();
-        // Find specific row with name
-        for (Integer rowIndex = 0; rowIndex < tableModel.getRowCount(); rowIndex++) {
-            String columnEntry = (String) tableModel.getValueAt(rowIndex, idColumnIndex);  
-            if (columnEntry.equals(id)) {
-                tableModel.setValueAt(updatedQuantity + " " + unit, rowIndex, quantityIndex);
-                tableModel.setValueAt(updatedTime, rowIndex, timeIndex);
-                break;
-            }
+     * @param observation Biometric - The updated cholesterol biometric.
+     */
+    public void updateCholesterolTextualMonitor(Biometric observation){
+        getUpdateBatcher().cholesterolRowChanged(observation);
+    }
+    
+    /**
+     * Find the cholesterol table row of the patient of a biometric so it is redrawn with the biometric's latest values.
+     * Must be called on the event dispatch thread.
+     * 
+     * @param observation Biometric - The updated cholesterol biometric.
+     * @param range RowRange - Records the updated row.
+     */
+    void applyCholesterolRow(Biometric observation, RowRange range){
+        Integer rowIndex = getCholesterolTableModel().indexOf(observation.getId());
+        if (rowIndex != -1) {
+            range.include(rowIndex);
         }
     }
     
     /**
-     * Update the cholesterol bar chart.
+     * Update the cholesterol bar chart. May be called from any thread, the bars of the cholesterol biometrics changed in the
+     * same batch are updated on the event dispatch thread and the chart is redrawn once.
      */
     public void updateCholesterolBarChart(){
-        String unit = "";
-        
-        // Reset cholesterolDcd
-        this.cholesterolDcd = new DefaultCategoryDataset();
-        BiometricIterator it = this.storage.getCholesterolBiometricsContainer().getIterator();
-        while (it.hasNext()){
-            // 1. Get requestHandler for new observation data
-            Map.Entry<String, Biometric> biometric = it.next();
-            Biometric observation = biometric.getValue();
-            getCholesterolDcd().setValue(Integer.parseInt(observation.getQuantity(getObservationName().CHOLESTEROL.name())), "Quantity", observation.getName());
-            unit = observation.getUnit(getObservationName().CHOLESTEROL.name());
-        }
-        // String patientName, String quantity, String unit
-        // Update graph
-        // Testing bar chart
-        // Set grid
-        JFreeChart jchart = ChartFactory.createBarChart("Cholesterol", "Patient", "Total quantity " + unit, getCholesterolDcd(), PlotOrientation.VERTICAL, false, true, false);
+        getUpdateBatcher().cholesterolChartChanged();
+    }
+    
+    /**
+     * Create the cholesterol bar chart. The chart and its dataset are kept for the lifetime of the view and only the values
+     * of changed patients are updated.
+     */
+    private void initCholesterolBarChart(){
+        JFreeChart jchart = ChartFactory.createBarChart("Cholesterol", "Patient", "Total quantity", getCholesterolDcd(), PlotOrientation.VERTICAL, false, true, false);
         CategoryPlot plot = jchart.getCategoryPlot();
         plot.setRangeGridlinePaint(Color.black);
+        this.cholesterolChart = jchart;
         
         // Puts chart into cholesterolBarChartPanel panel
         ChartPanel chartPanel = new ChartPanel(jchart);
         chartPanel.setMinimumSize(chartPanel.getPreferredSize());
-        this.cholesterolBarChartPanel.removeAll();
         this.cholesterolBarChartPanel.add(chartPanel);
-        this.cholesterolBarChartPanel.updateUI();
+        this.cholesterolBarChartPanel.revalidate();
+    }
+    
+    /**
+     * Update the bars of changed cholesterol biometrics in place. Dataset change events are held back until every bar has been updated,
+     * so the chart is redrawn once. Must be called on the event dispatch thread.
+     * @param changed List<Biometric> - cholesterol biometrics which may have changed.
+     */
+    void applyCholesterolBarChart(List<Biometric> changed){
+        String component = getObservationName().CHOLESTEROL.name();
+        Boolean suppressed = false;
+        String unit = null;
+        for (Biometric observation : changed) {
+            // Skip observations which have not been filled in yet or are no longer monitored
+            if (!observation.hasQuantity(component) || getCholesterolTableModel().indexOf(observation.getId()) == -1) {
+                continue;
+            }
+            String columnKey = getCholesterolChartColumn(observation);
+            Number current = getCholesterolDcd().getColumnIndex(columnKey) >= 0 ? getCholesterolDcd().getValue(CHART_ROW_KEY, columnKey) : null;
+            if (current == null || current.doubleValue() != observation.getQuantity(component)) {
+                if (!suppressed) {
+                    getCholesterolDcd().setNotify(false);
+                    suppressed = true;
+                }
+                getCholesterolDcd().setValue(observation.getQuantity(component), CHART_ROW_KEY, columnKey);
+                unit = observation.getUnit(component);
+            }
+        }
+        // Changing the axis label redraws the chart, so it is only done once and only if the unit has changed
+        if (unit != null) {
+            String label = "Total quantity " + unit;
+            ValueAxis rangeAxis = this.cholesterolChart.getCategoryPlot().getRangeAxis();
+            if (!label.equals(rangeAxis.getLabel())) {
+                rangeAxis.setLabel(label);
+            }
+        }
+        // Redraw the chart once for all of the changes
+        if (suppressed) {
+            getCholesterolDcd().setNotify(true);
+        }
+    }
+    
+    /**
+     * Gets the column of a patient in the cholesterol bar chart, which is the patient's name. If another patient has the same name,
+     * the patient ID is added to keep the columns apart.
+     * @param observation Biometric - cholesterol biometric.
+     * @return String
+     */
+    private String getCholesterolChartColumn(Biometric observation){
+        String columnKey = this.cholesterolChartColumns.get(observation.getId());
+        if (columnKey == null) {
+            columnKey = observation.getName();
+            if (this.cholesterolChartColumns.containsValue(columnKey)) {
+                columnKey = columnKey + " (" + observation.getId() + ")";
+            }
+            this.cholesterolChartColumns.put(observation.getId(), columnKey);
+        }
+        return columnKey;
+    }
+    
+    /**
+     * Removes a patient's bar from the cholesterol bar chart. Must be called on the event dispatch thread.
+     * @param patientId String - patient ID.
+     */
+    private void removeCholesterolChartColumn(String patientId){
+        String columnKey = this.cholesterolChartColumns.remove(patientId);
+        if (columnKey != null && getCholesterolDcd().getColumnIndex(columnKey) >= 0) {
+            getCholesterolDcd().removeColumn(columnKey);
+        }
+    }
+    
+    /**
+     * Create the history line chart in its own tab. It shows the observations of the biometric selected in a monitor table over time,
+     * one line per component.
+     */
+    private void initHistoryChart(){
+        JFreeChart jchart = ChartFactory.createTimeSeriesChart("History", "Time", "Quantity", getHistoryDataset(), true, true, false);
+        jchart.getXYPlot().setRangeGridlinePaint(Color.black);
+        this.historyChart = jchart;
+        
+        this.historyChartPanel = new ChartPanel(jchart);
+        mainPanel.addTab("History", this.historyChartPanel);
+    }
+    
+    /**
+     * Show the history of the biometric in a row of the cholesterol table.
+     * @param row Integer - index of the row, ignored if no row is selected.
+     */
+    public void showCholesterolHistory(Integer row){
+        if (row >= 0 && row < getCholesterolTableModel().getRowCount()) {
+            getHistoryGraphMonitor().show(getCholesterolTableModel().getBiometric(row));
+        }
+    }
+    
+    /**
+     * Show the history of the biometric in a row of the blood pressure table.
+     * @param row Integer - index of the row, ignored if no row is selected.
+     */
+    public void showBloodHistory(Integer row){
+        if (row >= 0 && row < getBloodTableModel().getRowCount()) {
+            getHistoryGraphMonitor().show(getBloodTableModel().getBiometric(row));
+        }
+    }
+    
+    /**
+     * Stop showing the history of a biometric if it is the one shown, e.g. when it is no longer monitored.
+     * @param observation Biometric - biometric which is no longer monitored.
+     */
+    private void clearHistory(Biometric observation){
+        if (getHistoryGraphMonitor().getObservation() == observation) {
+            getHistoryGraphMonitor().show(null);
+        }
     }
     
+    /**
+     * Update the history line chart. May be called from any thread, the chart is redrawn on the event dispatch thread.
+     */
+    public void updateHistoryGraph(){
+        getUpdateBatcher().historyGraphChanged();
+    }
     
     /**
-     * Update the highlighting of all rows in the cholesterol table to reflect
+     * Redraw the history line chart from the history of the shown biometric. Each component is downsampled with LttbDownsampler to one point
+     * per HISTORY_PIXELS_PER_POINT pixels of the chart's width, so redrawing costs the same however long the history is. The series are refilled without
+     * firing an event per point. Must be called on the event dispatch thread.
+     */
+    void applyHistoryGraph(){
+        Biometric observation = getHistoryGraphMonitor().getObservation();
+        XYSeriesCollection dataset = getHistoryDataset();
+        ComponentLayout layout = (observation == null) ? null : observation.getLayout();
+        // 1. Replace the series when another biometric is shown
+        if (observation != this.historyObservation) {
+            this.historyObservation = observation;
+            dataset.removeAllSeries();
+            if (observation == null) {
+                this.historyChart.setTitle("History");
+                return;
+            }
+            this.historyChart.setTitle("History of " + observation.getName());
+            for (int slot = 0; slot < layout.size(); slot++) {
+                dataset.addSeries(new XYSeries(layout.getComponent(slot).name(), false, true));
+            }
+        }
+        if (observation == null) {
+            return;
+        }
+        
+        // 2. Downsample each component to the width of the chart
+        int threshold = Math.max(3, this.historyChartPanel.getWidth() / HISTORY_PIXELS_PER_POINT);
+        ObservationHistory history = observation.getHistory();
+        if (this.historyTimes.length < history.capacity()) {
+            this.historyTimes = new long[history.capacity()];
+            this.historyQuantities = new double[history.capacity()];
+        }
+        if (this.historyTimesOut.length < Math.min(threshold, this.historyTimes.length)) {
+            this.historyTimesOut = new long[threshold];
+            this.historyQuantitiesOut = new double[threshold];
+        }
+        for (int slot = 0; slot < layout.size(); slot++) {
+            int length = history.copyRange(Long.MIN_VALUE, Long.MAX_VALUE, slot, this.historyTimes, this.historyQuantities);
+            int kept = LttbDownsampler.downsample(this.historyTimes, this.historyQuantities, length, threshold, this.historyTimesOut, this.historyQuantitiesOut);
+            XYSeries series = dataset.getSeries(slot);
+            series.setNotify(false);
+            series.clear();
+            for (int i = 0; i < kept; i++) {
+                series.add(this.historyTimesOut[i], this.historyQuantitiesOut[i], false);
+            }
+            // Redraw the chart once per component rather than once per point
+            series.setNotify(true);
+        }
+        String unit = observation.getUnit(layout.getComponent(0).name());
+        this.historyChart.getXYPlot().getRangeAxis().setLabel(unit == null ? "Quantity" : "Quantity " + unit);
+    }
+    
+    /**
+     * Update the highlighting of the rows in the cholesterol table to reflect
      * the new average.
      * 
-     * Clears the formatting of each entry in the table, colouring it again if 
-     * the measured value is higher than the average and if the table size is 
-     * larger than 1.
+     * A row is coloured if its measured value is higher than the average and if 
+     * the table size is larger than 1. Only rows whose highlighting changed are 
+     * rewritten.
+     * 
+     * May be called from any thread, the rows are updated on the event dispatch thread.
      * 
-     * @param avg Integer - the new average cholesterol value with which to update the 
-     * table.
+     * @param avg Double - the new average cholesterol value with which to update the 
+     * table. May be null if there are no cholesterol observations.
      */
-    public void updateCholesterolAverage(Integer avg) {
-        DefaultTableModel tableModel= (DefaultTableModel) cholesterolTable.getModel();
-        Integer nameIndex = 1;
-        Integer quantityIndex = 2;
-        
-        // only update colour if there is more than one row
-        
-        // Iterate through each row to check if the total cholesterol quantity is greater than the average
+    public void updateCholesterolAverage(Double avg) {
+        getUpdateBatcher().cholesterolAverageChanged(avg);
+    }
+    
+    /**
+     * Update the highlighting flags of the rows in the cholesterol table with the new average, recording the rows whose highlighting changed.
+     * Must be called on the event dispatch thread.
+     * 
+     * @param avg Double - the new average cholesterol value. May be null if there are no cholesterol observations.
+     * @param range RowRange - Records the updated rows.
+     */
+    void applyCholesterolAverage(Double avg, RowRange range) {
+        CholesterolTableModel tableModel = getCholesterolTableModel();
+        Boolean highlightEnabled = (avg != null && tableModel.getRowCount() > 1);
         for (Integer rowIndex = 0; rowIndex < tableModel.getRowCount(); rowIndex++) {
-            // Process quantity and name
-            String quantityEntry = (String) tableModel.getValueAt(rowIndex, quantityIndex);  
-            String nameEntry = (String) tableModel.getValueAt(rowIndex, nameIndex);  
-            
-            // Reset colours if some text already has colours
-            quantityEntry = quantityEntry.replace("<html><font color=red>", "");
-            quantityEntry = quantityEntry.replace("</font>", "");
-            nameEntry = nameEntry.replace("<html><font color=red>", "");
-            nameEntry = nameEntry.replace("</font>", "");
-            
-            String quantity = quantityEntry.split(" ")[0];
-            String unit = quantityEntry.split(" ")[1];
-            
-            // Always set to no colour first
-            tableModel.setValueAt(quantity + " " + unit, rowIndex, quantityIndex);
-            tableModel.setValueAt(nameEntry, rowIndex, nameIndex);
-            
-            // Highlight quantity and name if it is above the total average quantity
-            if (tableModel.getRowCount()>1) {
-                if ((Integer.parseInt(quantity) > avg)) {
-                    tableModel.setValueAt("<html><font color=red>" + quantity + " " + unit + "</font>" , rowIndex, quantityIndex);
-                    tableModel.setValueAt("<html><font color=red>" + nameEntry + "</font>" , rowIndex, nameIndex);
-                }  
+            Biometric observation = tableModel.getBiometric(rowIndex);
+            // Observations which have not been filled in yet are never highlighted
+            Boolean aboveAverage = highlightEnabled && observation.hasQuantity(getObservationName().CHOLESTEROL.name())
+                    && observation.getQuantity(getObservationName().CHOLESTEROL.name()) > avg;
+            if (!aboveAverage.equals(tableModel.isAboveAverage(rowIndex))) {
+                tableModel.setAboveAverage(rowIndex, aboveAverage);
+                range.include(rowIndex);
             }
         }
     }
     
+    /**
+     * Start a batch of updates on the current thread e.g. a scheduled update of every monitor. Updates the thread makes until the batch ends are published to the tables together.
+     */
+    public void beginUpdateBatch() {
+        getUpdateBatcher().beginBatch();
+    }
+    
+    /**
+     * End a batch of updates, publishing every update made during it.
+     */
+    public void endUpdateBatch() {
+        getUpdateBatcher().endBatch();
+    }
+    
     /**
      * Set an error message for the user. E.G. if a selected patient does not have a given biometric,
      * and the user tries to monitor that biometric.
@@ -904,7 +1134,7 @@ public class DashboardView extends javax.swing.JFrame {
      * @return BiometricGraphMonitor
      */
     public void updateCholesterolGraphMonitor(){
-        getMonitorSelector().selectGraphMonitor("cholesterolGraphMonitor").update();
+        getMonitorSelector().selectGraphMonitor("cholesterolGraphMonitor").update(null);
     }
     
     /**
@@ -940,31 +1170,24 @@ public class DashboardView extends javax.swing.JFrame {
     }
 
     /**
-     * Update the blood pressure text monitor.
-     * @param id String - Patient id.
-     * @param diastolicQty String - Diastolic blood pressure quantity.
-     * @param diastolicUnit String - Diastolic blood pressure unit.
-     * @param systolicQty String - Systolic blood pressure quantity.
-     * @param systolicUnit String - Systolic blood pressure unit. 
-     * @param updatedTime String - Updated effective date time at which observation was made.
-     */
-    public void updateBloodTextMonitor(String id, String diastolicQty, String diastolicUnit, String systolicQty, String systolicUnit, String updatedTime){
-        // Update table
-        DefaultTableModel tableModel= null;
-        Integer idColumnIndex = 0;
-        Integer systolicIndex = 2;
-        Integer diastolicIndex = 3;
-        Integer timeIndex = 4;
-        tableModel= (DefaultTableModel) bloodTable.getModel();
-        // Find specific row with name
-        for (Integer rowIndex = 0; rowIndex < tableModel.getRowCount(); rowIndex++) {
-            String columnEntry = (String) tableModel.getValueAt(rowIndex, idColumnIndex);  
-            if (columnEntry.equals(id)) {
-                tableModel.setValueAt(systolicQty + " " + systolicUnit, rowIndex, systolicIndex);
-                tableModel.setValueAt(diastolicQty + " " + diastolicUnit, rowIndex, diastolicIndex);
-                tableModel.setValueAt(updatedTime, rowIndex, timeIndex);
-                break;
-            }
+     * Update the blood pressure text monitor. May be called from any thread, the row is updated on the event dispatch thread
+     * together with every other change in the same batch.
+     * @param observation Biometric - The updated blood pressure biometric.
+     */
+    public void updateBloodTextMonitor(Biometric observation){
+        getUpdateBatcher().bloodRowChanged(observation);
+    }
+    
+    /**
+     * Find the blood pressure table row of the patient of a biometric so it is redrawn with the biometric's latest values.
+     * Must be called on the event dispatch thread.
+     * @param observation Biometric - The updated blood pressure biometric.
+     * @param range RowRange - Records the updated row.
+     */
+    void applyBloodRow(Biometric observation, RowRange range){
+        Integer rowIndex = getBloodTableModel().indexOf(observation.getId());
+        if (rowIndex != -1) {
+            range.include(rowIndex);
         }
     }
     
@@ -981,8 +1204,8 @@ public class DashboardView extends javax.swing.JFrame {
      * @param row - Index of row to remove.
      */
     public void removeBloodTableRow(Integer row){
-        JTable bloodTable = getBloodTable();
-        ((DefaultTableModel)bloodTable.getModel()).removeRow(row);
+        clearHistory(getBloodTableModel().getBiometric(row));
+        getBloodTableModel().removeRow(row);
     }
     
     /**
@@ -990,8 +1213,9 @@ public class DashboardView extends javax.swing.JFrame {
      * @param row - Index of row to remove.
      */
     public void removeCholesterolTableRow(Integer row){
-        JTable cholesterolTable = getCholesterolTable();
-        ((DefaultTableModel)cholesterolTable.getModel()).removeRow(row);
+        clearHistory(getCholesterolTableModel().getBiometric(row));
+        removeCholesterolChartColumn(getCholesterolTableModel().getBiometric(row).getId());
+        getCholesterolTableModel().removeRow(row);
     }
     
     /**
@@ -1046,49 +1270,36 @@ public class DashboardView extends javax.swing.JFrame {
     }
     
     /**
-     * Highlight blood pressures which are above the threshold.
+     * Highlight blood pressures which are above the threshold. May be called from any thread, the rows are updated on the
+     * event dispatch thread.
      * @param systolicThreshold - Systolic threshold.
      * @param diastolicThreshold - Diastolic threshold.
      */
     public void updateBloodOverThreshold(Integer systolicThreshold, Integer diastolicThreshold) {
-        DefaultTableModel tableModel = (DefaultTableModel) bloodTable.getModel();
-        Integer nameIndex = 1;
-        Integer systolicIndex = 2;
-        Integer diastolicIndex = 3;
+        getUpdateBatcher().bloodThresholdsChanged(systolicThreshold, diastolicThreshold);
+    }
+    
+    /**
+     * Update the highlighting flags of the rows in the blood pressure table with the thresholds, recording the rows whose highlighting changed.
+     * Must be called on the event dispatch thread.
+     * @param systolicThreshold - Systolic threshold.
+     * @param diastolicThreshold - Diastolic threshold.
+     * @param range RowRange - Records the updated rows.
+     */
+    void applyBloodOverThreshold(Integer systolicThreshold, Integer diastolicThreshold, RowRange range) {
+        BloodTableModel tableModel = getBloodTableModel();
+        String systolicName = getObservationName().SYSTOLIC.name();
+        String diastolicName = getObservationName().DIASTOLIC.name();
         
-        // Iterate through each row to check if the total cholesterol quantity is greater than the average
+        // Iterate through each row to check if the blood pressure quantities are greater than the thresholds
         for (Integer rowIndex = 0; rowIndex < tableModel.getRowCount(); rowIndex++) {
-            // Process quantity and name
-            String nameEntry = (String) tableModel.getValueAt(rowIndex, nameIndex);  
-            String systolicEntry = (String) tableModel.getValueAt(rowIndex, systolicIndex);  
-            String diastolicEntry = (String) tableModel.getValueAt(rowIndex, diastolicIndex);  
-            
-            // Reset colours if some text already has colours
-            nameEntry = nameEntry.replace("<html><font color=purple>", "");
-            nameEntry = nameEntry.replace("</font>", "");
-            systolicEntry = systolicEntry.replace("<html><font color=purple>", "");
-            systolicEntry = systolicEntry.replace("</font>", "");
-            diastolicEntry = diastolicEntry.replace("<html><font color=purple>", "");
-            diastolicEntry = diastolicEntry.replace("</font>", "");
-            
-            String systolicQuantity = systolicEntry.split(" ")[0];
-            String systolicUnit = systolicEntry.split(" ")[1];
-            String diastolicQuantity = diastolicEntry.split(" ")[0];
-            String diastolicUnit = diastolicEntry.split(" ")[1];
-            
-            // Always set to no colour first
-            tableModel.setValueAt(nameEntry, rowIndex, nameIndex);
-            tableModel.setValueAt(systolicQuantity + " " + systolicUnit, rowIndex, systolicIndex);
-            tableModel.setValueAt(diastolicQuantity + " " + systolicUnit, rowIndex, diastolicIndex);
-            
-            // Highlight quantities and name if it is above the thresholds
-            if ((Integer.parseInt(systolicQuantity) > systolicThreshold)) {
-                tableModel.setValueAt("<html><font color=purple>" + nameEntry + "</font>" , rowIndex, nameIndex);
-                tableModel.setValueAt("<html><font color=purple>" + systolicQuantity + " " + systolicUnit + "</font>" , rowIndex, systolicIndex);
-            }
-            if ((Integer.parseInt(diastolicQuantity) > diastolicThreshold)) {
-                tableModel.setValueAt("<html><font color=purple>" + nameEntry + "</font>" , rowIndex, nameIndex);
-                tableModel.setValueAt("<html><font color=purple>" + diastolicQuantity + " " + diastolicUnit + "</font>" , rowIndex, diastolicIndex);
+            Biometric observation = tableModel.getBiometric(rowIndex);
+            // Observations which have not been filled in yet are never highlighted
+            Boolean systolicOver = observation.hasQuantity(systolicName) && observation.getQuantity(systolicName) > systolicThreshold;
+            Boolean diastolicOver = observation.hasQuantity(diastolicName) && observation.getQuantity(diastolicName) > diastolicThreshold;
+            if (!systolicOver.equals(tableModel.isSystolicOver(rowIndex)) || !diastolicOver.equals(tableModel.isDiastolicOver(rowIndex))) {
+                tableModel.setOverThreshold(rowIndex, systolicOver, diastolicOver);
+                range.include(rowIndex);
             }
         }
     }
@@ -1125,6 +1336,46 @@ public class DashboardView extends javax.swing.JFrame {
         return this.observationName;
     }
     
+    /**
+     * Gets cholesterolTableModel attribute.
+     * @return CholesterolTableModel
+     */
+    private CholesterolTableModel getCholesterolTableModel(){
+        return this.cholesterolTableModel;
+    }
+    
+    /**
+     * Gets bloodTableModel attribute.
+     * @return BloodTableModel
+     */
+    private BloodTableModel getBloodTableModel(){
+        return this.bloodTableModel;
+    }
+    
+    /**
+     * Gets updateBatcher attribute.
+     * @return UpdateBatcher
+     */
+    private UpdateBatcher getUpdateBatcher(){
+        return this.updateBatcher;
+    }
+    
+    /**
+     * Gets historyDataset attribute.
+     * @return XYSeriesCollection
+     */
+    private XYSeriesCollection getHistoryDataset(){
+        return this.historyDataset;
+    }
+    
+    /**
+     * Gets the history graph monitor which observes the biometric shown in the history line chart.
+     * @return BiometricHistoryGraphMonitor
+     */
+    private BiometricHistoryGraphMonitor getHistoryGraphMonitor(){
+        return (BiometricHistoryGraphMonitor) getMonitorSelector().selectGraphMonitor("historyGraphMonitor");
+    }
+    
     /**
      * Gets monitorSelector attribute.
      * @return MonitorSelector
@@ -0,0 +1,37 @@
+package view;
+
+import java.awt.Color;
+import java.awt.Component;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * HighlightCellRenderer draws the cells of a monitor table, colouring the text of cells which the MonitorTableModel flags as highlighted
+ * e.g. cholesterol above the average or blood pressure over the threshold. Highlighting is read from the flags of the model, so cell values
+ * never contain any markup.
+ * @author Bryan
+ */
+public class HighlightCellRenderer extends DefaultTableCellRenderer {
+    private Color highlightColour;
+    
+    /**
+     * Constructor for HighlightCellRenderer.
+     * @param highlightColour Color - colour of highlighted text.
+     */
+    public HighlightCellRenderer(Color highlightColour) {
+        this.highlightColour = highlightColour;
+    }
+    
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        Component cell = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        MonitorTableModel tableModel = (MonitorTableModel) table.getModel();
+        if (tableModel.isHighlighted(table.convertRowIndexToModel(row), table.convertColumnIndexToModel(column))) {
+            cell.setForeground(this.highlightColour);
+        }
+        else {
+            cell.setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,77 @@
+package view;
+
+/**
+ * LttbDownsampler reduces a time series to a fixed number of points with the Largest-Triangle-Three-Buckets algorithm. The first and last
+ * points are kept, the points in between are split into equal buckets, and from each bucket the point forming the largest triangle with the
+ * previously kept point and the average of the next bucket is kept. This keeps the visual shape of the series, so a chart only has to draw
+ * about one point per pixel however long the series is.
+ * @author Bryan
+ */
+public class LttbDownsampler {
+    
+    /**
+     * Downsamples a time series into arrays supplied by the caller, without allocating.
+     * @param times long[] - times of the points in ascending order.
+     * @param values double[] - values of the points.
+     * @param length int - number of points to read from times and values.
+     * @param threshold int - maximum number of points to keep, at least 3. Series of this length or shorter are copied unchanged.
+     * @param timesOut long[] - receives the times of the kept points, must hold at least min(length, threshold) points.
+     * @param valuesOut double[] - receives the values of the kept points, must hold at least min(length, threshold) points.
+     * @return int - number of points kept.
+     */
+    public static int downsample(long[] times, double[] values, int length, int threshold, long[] timesOut, double[] valuesOut) {
+        if (threshold >= length) {
+            System.arraycopy(times, 0, timesOut, 0, length);
+            System.arraycopy(values, 0, valuesOut, 0, length);
+            return length;
+        }
+        threshold = Math.max(threshold, 3);
+        // Size of each bucket, excluding the first and last points which are always kept
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int kept = 0;
+        int previous = 0;
+        timesOut[kept] = times[0];
+        valuesOut[kept] = values[0];
+        kept ++;
+        
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 1. Average point of the next bucket (or the last point for the final bucket)
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double averageTime = 0;
+            double averageValue = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                // Times are taken relative to the previous point to keep the precision of large epoch values
+                averageTime += times[i] - times[previous];
+                averageValue += values[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            averageTime /= nextLength;
+            averageValue /= nextLength;
+            
+            // 2. Point of this bucket forming the largest triangle with the previous point and the next bucket's average
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double previousValue = values[previous];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double time = times[i] - times[previous];
+                double area = Math.abs(-averageTime * (values[i] - previousValue) + time * (averageValue - previousValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            timesOut[kept] = times[selected];
+            valuesOut[kept] = values[selected];
+            kept ++;
+            previous = selected;
+        }
+        
+        timesOut[kept] = times[length - 1];
+        valuesOut[kept] = values[length - 1];
+        kept ++;
+        return kept;
+    }
+}
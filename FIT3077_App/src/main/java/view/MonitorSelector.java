@@ -29,6 +29,7 @@ public class MonitorSelector {
         this.textMonitors.put("cholesterolTextMonitor", new CholesterolTextMonitor(this.view));
         this.graphMonitors.put("cholesterolGraphMonitor", new CholesterolGraphMonitor(this.view));
         this.textMonitors.put("bloodTextMonitor", new BloodTextMonitor(this.view));
+        this.graphMonitors.put("historyGraphMonitor", new BiometricHistoryGraphMonitor(this.view));
     }
     
     /**
@@ -0,0 +1,132 @@
+package view;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+import model.Biometric;
+
+/**
+ * MonitorTableModel is a table model for a monitor table which is backed directly by the tracked Biometric objects, so cell values are read from
+ * the biometrics instead of being copied into the table. It keeps an index from patient ID to row, so the row of a patient is found in O(1).
+ * Highlighting is kept as flags and drawn by a HighlightCellRenderer. Must only be used on the event dispatch thread.
+ * @author Bryan
+ */
+public abstract class MonitorTableModel extends AbstractTableModel {
+    private String[] columnNames;
+    private List<Biometric> rows = new ArrayList();
+    private Map<String, Integer> rowIndex = new HashMap(); // <patientId, row>
+    
+    /**
+     * Constructor for MonitorTableModel.
+     * @param columnNames String[] - column headings.
+     */
+    public MonitorTableModel(String[] columnNames) {
+        this.columnNames = columnNames;
+    }
+    
+    /**
+     * Gets the value of a cell of a biometric's row.
+     * @param observation Biometric - biometric of the row.
+     * @param row int - index of the row.
+     * @param column int - index of the column.
+     * @return Object
+     */
+    protected abstract Object getValueAt(Biometric observation, int row, int column);
+    
+    /**
+     * Checks if a cell should be drawn highlighted.
+     * @param row int - index of the row.
+     * @param column int - index of the column.
+     * @return Boolean
+     */
+    public abstract Boolean isHighlighted(int row, int column);
+    
+    /**
+     * Adds a row for a biometric at the end of the table.
+     * @param observation Biometric - biometric to show in the row.
+     */
+    public void addRow(Biometric observation) {
+        int row = this.rows.size();
+        this.rows.add(observation);
+        this.rowIndex.put(observation.getId(), row);
+        fireTableRowsInserted(row, row);
+    }
+    
+    /**
+     * Removes a row. The rows below it move up, so their indexes are updated.
+     * @param row int - index of the row to remove.
+     */
+    public void removeRow(int row) {
+        Biometric removed = this.rows.remove(row);
+        this.rowIndex.remove(removed.getId());
+        for (int i = row; i < this.rows.size(); i++) {
+            this.rowIndex.put(this.rows.get(i).getId(), i);
+        }
+        rowRemoved(row);
+        fireTableRowsDeleted(row, row);
+    }
+    
+    /**
+     * Called after a row has been removed, so subclasses can remove any state they keep for it.
+     * @param row int - index the row had.
+     */
+    protected void rowRemoved(int row) {
+    }
+    
+    /**
+     * Gets the row of a patient.
+     * @param patientId String - patient ID.
+     * @return int - index of the row, -1 if the patient is not in the table.
+     */
+    public int indexOf(String patientId) {
+        Integer row = this.rowIndex.get(patientId);
+        return (row == null) ? -1 : row;
+    }
+    
+    /**
+     * Gets the biometric shown in a row.
+     * @param row int - index of the row.
+     * @return Biometric
+     */
+    public Biometric getBiometric(int row) {
+        return this.rows.get(row);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return this.rows.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return this.columnNames.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return this.columnNames[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        return getValueAt(this.rows.get(row), row, column);
+    }
+    
+    /**
+     * Formats a quantity for display with its unit. Quantities are shown at full precision, without trailing zeros.
+     * @param quantity double - quantity to format.
+     * @param unit String - unit of the quantity.
+     * @return String - e.g. "182.5 mg/dL".
+     */
+    protected static String formatQuantity(double quantity, String unit) {
+        return BigDecimal.valueOf(quantity).stripTrailingZeros().toPlainString() + " " + unit;
+    }
+}
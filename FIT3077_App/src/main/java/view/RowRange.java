@@ -0,0 +1,44 @@
+package view;
+
+/**
+ * RowRange records the smallest range of table rows that contains every row changed during an update, so the table can be told about all
+ * of the changes with a single event.
+ * @author Bryan
+ */
+public class RowRange {
+    private int first = Integer.MAX_VALUE;
+    private int last = -1;
+    
+    /**
+     * Adds a changed row to the range.
+     * @param row int - index of the changed row.
+     */
+    public void include(int row) {
+        this.first = Math.min(this.first, row);
+        this.last = Math.max(this.last, row);
+    }
+    
+    /**
+     * Checks if no rows have changed.
+     * @return Boolean
+     */
+    public Boolean isEmpty() {
+        return this.last < 0;
+    }
+    
+    /**
+     * Gets the first changed row.
+     * @return int
+     */
+    public int getFirst() {
+        return this.first;
+    }
+    
+    /**
+     * Gets the last changed row.
+     * @return int
+     */
+    public int getLast() {
+        return this.last;
+    }
+}
@@ -0,0 +1,196 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import model.Biometric;
+
+/**
+ * UpdateBatcher gathers the changes made to the dashboard from any thread into a dirty set, and publishes all of them to the DashboardView in one
+ * SwingUtilities.invokeLater. Rows are written without firing an event per cell, then each table is told about its changed rows with a single
+ * fireTableRowsUpdated. Changes made during a batch (e.g. a scheduled update of every monitor) are published once when the batch ends,
+ * and changes made outside a batch, e.g. on the event dispatch thread while a scheduled update is running, are published straight away.
+ * @author Bryan
+ */
+public class UpdateBatcher {
+    private DashboardView view;
+    private Map<String, Biometric> cholesterolRows = new ConcurrentHashMap();   // <patientId, changed biometric>
+    private Map<String, Biometric> bloodRows = new ConcurrentHashMap();         // <patientId, changed biometric>
+    private AtomicBoolean cholesterolAverageChanged = new AtomicBoolean(false);
+    private volatile Double cholesterolAverage = null;
+    private AtomicReference<Integer[]> bloodThresholds = new AtomicReference<Integer[]>(null);
+    private AtomicBoolean cholesterolChartChanged = new AtomicBoolean(false);
+    private AtomicBoolean historyGraphChanged = new AtomicBoolean(false);
+    private ThreadLocal<Integer> batchDepth = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    }; // batches are per thread, so a long scheduled update does not hold back changes made on the event dispatch thread
+    private AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    
+    /**
+     * Constructor for UpdateBatcher.
+     * @param view DashboardView - view the changes are published to.
+     */
+    public UpdateBatcher(DashboardView view) {
+        this.view = view;
+    }
+    
+    /**
+     * Starts a batch on the current thread. Changes made by the thread are held back until every batch it started has ended.
+     * Changes made by other threads are still published straight away, together with any changes held back so far.
+     */
+    public void beginBatch() {
+        this.batchDepth.set(this.batchDepth.get() + 1);
+    }
+    
+    /**
+     * Ends a batch on the current thread, publishing the changes made during it if the thread has no other batch in progress.
+     */
+    public void endBatch() {
+        Integer depth = this.batchDepth.get() - 1;
+        this.batchDepth.set(Math.max(0, depth));
+        if (depth <= 0) {
+            requestFlush();
+        }
+    }
+    
+    /**
+     * Marks the cholesterol table row of a biometric as changed.
+     * @param observation Biometric - changed biometric.
+     */
+    public void cholesterolRowChanged(Biometric observation) {
+        this.cholesterolRows.put(observation.getId(), observation);
+        changed();
+    }
+    
+    /**
+     * Marks the blood pressure table row of a biometric as changed.
+     * @param observation Biometric - changed biometric.
+     */
+    public void bloodRowChanged(Biometric observation) {
+        this.bloodRows.put(observation.getId(), observation);
+        changed();
+    }
+    
+    /**
+     * Marks the cholesterol average as changed.
+     * @param average Double - new average, may be null.
+     */
+    public void cholesterolAverageChanged(Double average) {
+        this.cholesterolAverage = average;
+        this.cholesterolAverageChanged.set(true);
+        changed();
+    }
+    
+    /**
+     * Marks the blood pressure thresholds as changed.
+     * @param systolicThreshold Integer - systolic threshold.
+     * @param diastolicThreshold Integer - diastolic threshold.
+     */
+    public void bloodThresholdsChanged(Integer systolicThreshold, Integer diastolicThreshold) {
+        this.bloodThresholds.set(new Integer[]{systolicThreshold, diastolicThreshold});
+        changed();
+    }
+    
+    /**
+     * Marks the cholesterol bar chart as changed.
+     */
+    public void cholesterolChartChanged() {
+        this.cholesterolChartChanged.set(true);
+        changed();
+    }
+    
+    /**
+     * Marks the history line chart as changed.
+     */
+    public void historyGraphChanged() {
+        this.historyGraphChanged.set(true);
+        changed();
+    }
+    
+    /**
+     * Publishes a change straight away unless the current thread has a batch in progress.
+     */
+    private void changed() {
+        if (this.batchDepth.get() <= 0) {
+            requestFlush();
+        }
+    }
+    
+    /**
+     * Schedules the changes to be published on the event dispatch thread, unless they already are.
+     */
+    private void requestFlush() {
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Publishes every change made since the last flush. Must be called on the event dispatch thread.
+     * Changes made while flushing are published by the next flush.
+     */
+    private void flush() {
+        this.flushScheduled.set(false);
+        RowRange cholesterolRange = new RowRange();
+        RowRange bloodRange = new RowRange();
+        
+        // 1. Write the changed rows
+        List<Biometric> changedCholesterol = new ArrayList();
+        for (String patientId : this.cholesterolRows.keySet()) {
+            Biometric observation = this.cholesterolRows.remove(patientId);
+            if (observation != null) {
+                this.view.applyCholesterolRow(observation, cholesterolRange);
+                changedCholesterol.add(observation);
+            }
+        }
+        for (String patientId : this.bloodRows.keySet()) {
+            Biometric observation = this.bloodRows.remove(patientId);
+            if (observation != null) {
+                this.view.applyBloodRow(observation, bloodRange);
+            }
+        }
+        // 2. Update highlighting
+        if (this.cholesterolAverageChanged.getAndSet(false)) {
+            this.view.applyCholesterolAverage(this.cholesterolAverage, cholesterolRange);
+        }
+        Integer[] thresholds = this.bloodThresholds.getAndSet(null);
+        if (thresholds != null) {
+            this.view.applyBloodOverThreshold(thresholds[0], thresholds[1], bloodRange);
+        }
+        // 3. Tell each table about all of its changed rows at once
+        fireRowsUpdated((AbstractTableModel) this.view.getCholesterolTable().getModel(), cholesterolRange);
+        fireRowsUpdated((AbstractTableModel) this.view.getBloodTable().getModel(), bloodRange);
+        // 4. Update the bars of the changed cholesterol biometrics, redrawing the chart once
+        if (this.cholesterolChartChanged.getAndSet(false) || !changedCholesterol.isEmpty()) {
+            this.view.applyCholesterolBarChart(changedCholesterol);
+        }
+        // 5. Redraw the history line chart
+        if (this.historyGraphChanged.getAndSet(false)) {
+            this.view.applyHistoryGraph();
+        }
+    }
+    
+    /**
+     * Fires a single event for a range of changed rows.
+     * @param tableModel AbstractTableModel - model of the table.
+     * @param range RowRange - changed rows.
+     */
+    private void fireRowsUpdated(AbstractTableModel tableModel, RowRange range) {
+        if (!range.isEmpty()) {
+            tableModel.fireTableRowsUpdated(range.getFirst(), range.getLast());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package deserialisation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import model.Patient;
+import org.junit.Test;
+
+/**
+ * Tests for reading encounter search Bundles with EncounterEntryAdapterFactory.
+ * @author Bryan
+ */
+public class EncounterResponseTest {
+    private static final String ROOT = "https://fhir.monash.edu/hapi-fhir-jpaserver/fhir/";
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new EncounterEntryAdapterFactory()).create();
+    
+    /**
+     * Reads an encounter search Bundle with the given entries.
+     * @param entries String - JSON of the entries, separated by commas.
+     * @return EncounterResponse
+     */
+    private EncounterResponse read(String entries) {
+        return gson.fromJson("{\"resourceType\":\"Bundle\",\"link\":[],\"entry\":[" + entries + "]}", EncounterResponse.class);
+    }
+    
+    @Test
+    public void readsEncountersAndIncludedPatients() {
+        EncounterResponse response = read(
+                "{\"fullUrl\":\"" + ROOT + "Encounter/1\",\"resource\":{\"resourceType\":\"Encounter\",\"id\":\"1\","
+                + "\"subject\":{\"reference\":\"Patient/29\"},\"status\":\"finished\"},\"search\":{\"mode\":\"match\"}},"
+                + "{\"fullUrl\":\"" + ROOT + "Patient/29\",\"resource\":{\"resourceType\":\"Patient\",\"id\":\"29\",\"gender\":\"female\"},"
+                + "\"search\":{\"mode\":\"include\"}},"
+                + "{\"fullUrl\":\"" + ROOT + "Practitioner/7\",\"resource\":{\"resourceType\":\"Practitioner\",\"id\":\"7\"}}");
+        assertEquals(new TreeSet<String>(Arrays.asList("29")), response.getUniquePatientIds(new TreeSet<String>()));
+        Map<String, Patient> patients = response.getIncludedPatients(new HashMap<String, Patient>());
+        assertEquals(1, patients.size());
+        assertEquals("female", patients.get("29").getGender());
+    }
+    
+    @Test
+    public void resourceBeforeFullUrlIsReadByItsResourceType() {
+        EncounterResponse response = read(
+                "{\"resource\":{\"id\":\"2\",\"subject\":{\"reference\":\"Patient/30\"},\"resourceType\":\"Encounter\"},"
+                + "\"fullUrl\":\"" + ROOT + "Encounter/2\"},"
+                + "{\"resource\":{\"resourceType\":\"Patient\",\"id\":\"30\"}}");
+        assertTrue(response.getUniquePatientIds(new TreeSet<String>()).contains("30"));
+        assertTrue(response.getIncludedPatients(new HashMap<String, Patient>()).containsKey("30"));
+    }
+    
+    @Test
+    public void versionedOrUuidFullUrlFallsBackToResourceType() {
+        EncounterResponse response = read(
+                "{\"fullUrl\":\"" + ROOT + "Patient/31/_history/2\",\"resource\":{\"resourceType\":\"Patient\",\"id\":\"31\"}},"
+                + "{\"fullUrl\":\"urn:uuid:0c3151bd-1cbf-4d64-b04d-cd9187a4c6e0\",\"resource\":{\"resourceType\":\"Patient\",\"id\":\"32\"}}");
+        Map<String, Patient> patients = response.getIncludedPatients(new HashMap<String, Patient>());
+        assertTrue(patients.containsKey("31"));
+        assertTrue(patients.containsKey("32"));
+    }
+    
+    @Test
+    public void entryWithoutResourceIsEmpty() {
+        EncounterResponse response = read("{\"fullUrl\":\"" + ROOT + "Encounter/3\"},{\"resource\":{\"id\":\"4\"}}");
+        assertTrue(response.getUniquePatientIds(new TreeSet<String>()).isEmpty());
+        assertTrue(response.getIncludedPatients(new HashMap<String, Patient>()).isEmpty());
+    }
+    
+    @Test
+    public void resourceTypeOfFullUrl() {
+        assertEquals("Patient", EncounterEntryAdapterFactory.getResourceType(ROOT + "Patient/29"));
+        assertNull(EncounterEntryAdapterFactory.getResourceType(ROOT + "Patient/29/_history/1"));
+        assertNull(EncounterEntryAdapterFactory.getResourceType("urn:uuid:0c3151bd"));
+        assertNull(EncounterEntryAdapterFactory.getResourceType(null));
+    }
+}
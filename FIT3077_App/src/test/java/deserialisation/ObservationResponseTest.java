@@ -0,0 +1,61 @@
+package deserialisation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+/**
+ * Tests for the date-time comparisons of ObservationResponse.
+ * @author Bryan
+ */
+public class ObservationResponseTest {
+    
+    /**
+     * Reads an observation search Bundle with entries of the given patients, effective date-times and last updated instants.
+     * @param entries String... - patient ID, effective date-time and last updated instant of each entry in turn.
+     * @return ObservationResponse
+     */
+    private ObservationResponse read(String... entries) {
+        StringBuilder json = new StringBuilder("{\"resourceType\":\"Bundle\",\"entry\":[");
+        for (int i = 0; i < entries.length; i += 3) {
+            json.append(i > 0 ? "," : "")
+                .append("{\"resource\":{\"resourceType\":\"Observation\",\"subject\":{\"reference\":\"Patient/").append(entries[i])
+                .append("\"},\"effectiveDateTime\":\"").append(entries[i + 1])
+                .append("\",\"meta\":{\"lastUpdated\":\"").append(entries[i + 2]).append("\"}}}");
+        }
+        return new Gson().fromJson(json.append("]}").toString(), ObservationResponse.class);
+    }
+    
+    @Test
+    public void latestEntryIsChosenByInstantAcrossOffsets() {
+        // 10:00+10:00 is 00:00Z, which is earlier than 09:00Z even though it sorts later as a string
+        ObservationResponse response = read(
+                "1", "2019-05-06T10:00:00+10:00", "2020-01-01T00:00:00Z",
+                "1", "2019-05-06T09:00:00Z", "2020-01-01T00:00:00Z");
+        assertEquals("2019-05-06T09:00:00Z", response.getLatestEntryByPatient().get("1").getTime());
+    }
+    
+    @Test
+    public void maxLastUpdatedIsChosenByInstant() {
+        ObservationResponse response = read(
+                "1", "2019-05-06", "2020-05-12T01:08:43+00:00",
+                "2", "2019-05-06", "2020-05-12T01:08:43.581+00:00",
+                "3", "2019-05-06", "2020-05-12T09:08:43.100+10:00");
+        assertEquals("2020-05-12T01:08:43.581+00:00", response.getMaxLastUpdated());
+    }
+    
+    @Test
+    public void fractionalSecondsAreLaterThanWholeSeconds() {
+        // "...43Z" sorts after "...43.5+00:00" as a string, although it is earlier
+        ObservationResponse response = read(
+                "1", "2019-05-06", "2020-05-12T01:08:43.5+00:00",
+                "2", "2019-05-06", "2020-05-12T01:08:43Z");
+        assertEquals("2020-05-12T01:08:43.5+00:00", response.getMaxLastUpdated());
+    }
+    
+    @Test
+    public void noEntriesHaveNoLastUpdated() {
+        assertNull(read().getMaxLastUpdated());
+    }
+}
@@ -0,0 +1,130 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for ObservationHistory.
+ * @author Bryan
+ */
+public class ObservationHistoryTest {
+    private static final double DELTA = 1e-9;
+    
+    /**
+     * Builds a history of one component with observations at the given times, each with a quantity ten times its time.
+     * @param capacity int - capacity of the history.
+     * @param times long... - times of the observations.
+     * @return ObservationHistory
+     */
+    private ObservationHistory historyOf(int capacity, long... times) {
+        ObservationHistory history = new ObservationHistory(capacity, 1);
+        for (long time : times) {
+            history.add(time, new double[]{time * 10});
+        }
+        return history;
+    }
+    
+    @Test
+    public void emptyHistoryHasNothingInRange() {
+        ObservationHistory history = new ObservationHistory(4, 1);
+        assertTrue(history.isEmpty());
+        assertEquals(0, history.countInRange(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, history.copyRange(Long.MIN_VALUE, Long.MAX_VALUE, 0, new long[4], new double[4]));
+        assertTrue(Double.isNaN(history.meanInRange(Long.MIN_VALUE, Long.MAX_VALUE, 0)));
+    }
+    
+    @Test
+    public void olderOrRepeatedObservationsAreIgnored() {
+        ObservationHistory history = historyOf(4, 10, 20);
+        assertFalse(history.add(20, new double[]{1}));
+        assertFalse(history.add(15, new double[]{1}));
+        assertEquals(2, history.size());
+        assertEquals(200, history.getQuantity(1, 0), DELTA);
+    }
+    
+    @Test
+    public void wrapsAroundOverwritingTheOldest() {
+        ObservationHistory history = historyOf(3, 1, 2, 3, 4, 5);
+        assertEquals(3, history.size());
+        assertEquals(3, history.getTime(0));
+        assertEquals(4, history.getTime(1));
+        assertEquals(5, history.getTime(2));
+        assertEquals(50, history.getQuantity(2, 0), DELTA);
+    }
+    
+    @Test
+    public void rangeQueriesWorkAcrossTheWrap() {
+        ObservationHistory history = historyOf(4, 10, 20, 30, 40, 50, 60);
+        // Stored oldest first: 30, 40, 50, 60, with 50 and 60 physically before 30 and 40
+        assertEquals(0, history.firstIndexAtOrAfter(5));
+        assertEquals(1, history.firstIndexAtOrAfter(40));
+        assertEquals(2, history.firstIndexAfter(40));
+        assertEquals(4, history.firstIndexAfter(60));
+        assertEquals(3, history.countInRange(35, 60));
+        long[] times = new long[4];
+        double[] quantities = new double[4];
+        assertEquals(3, history.copyRange(40, 65, 0, times, quantities));
+        assertEquals(40, times[0]);
+        assertEquals(60, times[2]);
+        assertEquals(600, quantities[2], DELTA);
+        assertEquals(550, history.meanInRange(50, 60, 0), DELTA);
+    }
+    
+    @Test
+    public void copyRangeStopsAtTheSizeOfTheArrays() {
+        ObservationHistory history = historyOf(5, 1, 2, 3, 4, 5);
+        long[] times = new long[2];
+        assertEquals(2, history.copyRange(Long.MIN_VALUE, Long.MAX_VALUE, 0, times, new double[2]));
+        assertEquals(2, times[1]);
+    }
+    
+    @Test
+    public void componentsAreKeptApart() {
+        ObservationHistory history = new ObservationHistory(2, 2);
+        history.add(1, new double[]{120, 80});
+        history.add(2, new double[]{130, 85});
+        history.add(3, new double[]{140, 90});
+        assertEquals(130, history.getQuantity(0, 0), DELTA);
+        assertEquals(85, history.getQuantity(0, 1), DELTA);
+        assertEquals(90, history.getQuantity(1, 1), DELTA);
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexPastTheLatestIsRejected() {
+        historyOf(4, 1, 2).getTime(2);
+    }
+    
+    @Test
+    public void biometricHistoryUsesTheUtcOffsetOfEachObservation() {
+        Biometric biometric = new Biometric("2093-3", "1", "Given", "Family");
+        biometric.setQuantity("CHOLESTEROL", 180);
+        biometric.setTime("2019-05-06T10:00:00+10:00");
+        biometric.recordHistory();
+        // One hour later in absolute time, although its local time is earlier
+        biometric.setQuantity("CHOLESTEROL", 190);
+        biometric.setTime("2019-05-06T01:00:00Z");
+        biometric.recordHistory();
+        ObservationHistory history = biometric.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(history.getTime(0) + 3600000L, history.getTime(1));
+        assertEquals("2019-05-06 01:00:00", biometric.getTime());
+    }
+    
+    @Test
+    public void growsUntilFullThenWrapsAround() {
+        ObservationHistory history = new ObservationHistory(40, 2);
+        for (long time = 1; time <= 100; time++) {
+            history.add(time, new double[]{time * 10, time * 20});
+            assertEquals(Math.min(time, 40), history.size());
+        }
+        assertEquals(40, history.capacity());
+        for (int index = 0; index < 40; index++) {
+            assertEquals(61 + index, history.getTime(index));
+            assertEquals((61 + index) * 10, history.getQuantity(index, 0), DELTA);
+            assertEquals((61 + index) * 20, history.getQuantity(index, 1), DELTA);
+        }
+        assertEquals(80.5 * 20, history.meanInRange(61, 100, 1), DELTA);
+    }
+}
@@ -0,0 +1,89 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+/**
+ * Tests for the running statistics kept by ObserveStorage.
+ * @author Bryan
+ */
+public class ObserveStorageTest {
+    private static final String CODE = new ObservationCodes().getCode(ObservationName.CHOLESTEROL.name());
+    private static final String COMPONENT = ObservationName.CHOLESTEROL.name();
+    
+    /**
+     * Builds a cholesterol biometric with a quantity.
+     * @param patientId String - patient of the biometric.
+     * @param quantity double - cholesterol quantity.
+     * @return Biometric
+     */
+    private Biometric cholesterol(String patientId, double quantity) {
+        Biometric observation = new Biometric(CODE, patientId, "Given", "Family");
+        observation.setQuantity(COMPONENT, quantity);
+        return observation;
+    }
+    
+    @Test
+    public void storedBiometricIsRecorded() {
+        ObserveStorage storage = new ObserveStorage();
+        Biometric observation = cholesterol("1", 5);
+        storage.storeCholesterolBiometric(CODE + ",1", observation);
+        storage.recordStatistic(observation, COMPONENT);
+        assertEquals(1, (int) storage.getStatistics(CODE, COMPONENT).getCount());
+    }
+    
+    @Test
+    public void removedBiometricIsNotRecorded() {
+        ObserveStorage storage = new ObserveStorage();
+        Biometric observation = cholesterol("1", 5);
+        storage.storeCholesterolBiometric(CODE + ",1", observation);
+        storage.removeCholesterolBiometric(CODE + ",1");
+        storage.recordStatistic(observation, COMPONENT);
+        assertEquals(0, (int) storage.getStatistics(CODE, COMPONENT).getCount());
+    }
+    
+    @Test
+    public void replacedBiometricIsNotRecorded() {
+        ObserveStorage storage = new ObserveStorage();
+        Biometric removed = cholesterol("1", 5);
+        storage.storeCholesterolBiometric(CODE + ",1", removed);
+        storage.removeCholesterolBiometric(CODE + ",1");
+        storage.storeCholesterolBiometric(CODE + ",1", cholesterol("1", 7));
+        storage.recordStatistic(removed, COMPONENT);
+        assertEquals(0, (int) storage.getStatistics(CODE, COMPONENT).getCount());
+    }
+    
+    @Test
+    public void removalsDuringUpdatesLeaveNoStatistics() throws InterruptedException {
+        final ObserveStorage storage = new ObserveStorage();
+        final Biometric[] observations = new Biometric[2000];
+        for (int i = 0; i < observations.length; i++) {
+            observations[i] = cholesterol(String.valueOf(i), i);
+            storage.storeCholesterolBiometric(CODE + "," + i, observations[i]);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread updater = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int round = 0; round < 20; round++) {
+                    for (Biometric observation : observations) {
+                        storage.recordStatistic(observation, COMPONENT);
+                    }
+                }
+            }
+        });
+        updater.start();
+        start.countDown();
+        for (int i = 0; i < observations.length; i++) {
+            storage.removeCholesterolBiometric(CODE + "," + i);
+        }
+        updater.join();
+        assertEquals(0, (int) storage.getStatistics(CODE, COMPONENT).getCount());
+    }
+}
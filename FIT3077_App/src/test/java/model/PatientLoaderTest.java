@@ -0,0 +1,104 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import deserialisation.EncounterEntryAdapterFactory;
+import deserialisation.EncounterResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import requests.RequestHandler;
+import requests.RequestPriority;
+
+/**
+ * Tests for PatientLoader.
+ * @author Bryan
+ */
+public class PatientLoaderTest {
+    private static final String ROOT = "https://fhir.monash.edu/hapi-fhir-jpaserver/fhir";
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new EncounterEntryAdapterFactory()).create();
+    
+    /**
+     * Request handler answering two pages of encounters. Patient 1 is included in the first page, patient 2 is not included anywhere.
+     * The priority of every request is recorded.
+     */
+    private static class StubRequestHandler extends RequestHandler {
+        private final Set<RequestPriority> priorities = ConcurrentHashMap.newKeySet();
+        
+        @Override
+        public EncounterResponse getEncounterFirstPageRequest(String practitionerId) {
+            this.priorities.add(RequestPriority.current());
+            return GSON.fromJson("{\"link\":[{\"relation\":\"next\",\"url\":\"" + ROOT + "?_getpages=1\"}],\"entry\":["
+                    + "{\"fullUrl\":\"" + ROOT + "/Encounter/10\",\"resource\":{\"subject\":{\"reference\":\"Patient/1\"}}},"
+                    + "{\"fullUrl\":\"" + ROOT + "/Patient/1\",\"resource\":{\"resourceType\":\"Patient\",\"id\":\"1\"}}]}", EncounterResponse.class);
+        }
+        
+        @Override
+        public EncounterResponse getEncounterNextPageRequest(EncounterResponse prevEncounterResponse) {
+            this.priorities.add(RequestPriority.current());
+            return GSON.fromJson("{\"link\":[],\"entry\":["
+                    + "{\"fullUrl\":\"" + ROOT + "/Encounter/11\",\"resource\":{\"subject\":{\"reference\":\"Patient/1\"}}},"
+                    + "{\"fullUrl\":\"" + ROOT + "/Encounter/12\",\"resource\":{\"subject\":{\"reference\":\"Patient/2\"}}}]}", EncounterResponse.class);
+        }
+        
+        @Override
+        public Patient getPatientRequest(String patientId) {
+            this.priorities.add(RequestPriority.current());
+            return GSON.fromJson("{\"id\":\"" + patientId + "\"}", Patient.class);
+        }
+    }
+    
+    @Test
+    public void loadsEveryPatientOnceAtBackgroundPriority() throws InterruptedException {
+        StubRequestHandler requestHandler = new StubRequestHandler();
+        ConcurrentHashMap<String, Patient> patients = new ConcurrentHashMap<String, Patient>();
+        final List<Patient> loaded = Collections.synchronizedList(new ArrayList<Patient>());
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Boolean[] truncated = new Boolean[1];
+        new PatientLoader(requestHandler, patients, 20).start("practitioner", new PatientListListener() {
+            @Override
+            public void patientsLoaded(List<Patient> patients) {
+                loaded.addAll(patients);
+            }
+            
+            @Override
+            public void loadingFinished(Boolean wasTruncated) {
+                truncated[0] = wasTruncated;
+                finished.countDown();
+            }
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertFalse(truncated[0]);
+        assertEquals(2, patients.size());
+        assertEquals(2, loaded.size());
+        assertEquals(1, requestHandler.priorities.size());
+        assertTrue(requestHandler.priorities.contains(RequestPriority.BACKGROUND));
+    }
+    
+    @Test
+    public void stopsAtThePageBudget() throws InterruptedException {
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Boolean[] truncated = new Boolean[1];
+        new PatientLoader(new StubRequestHandler(), new ConcurrentHashMap<String, Patient>(), 1).start("practitioner", new PatientListListener() {
+            @Override
+            public void patientsLoaded(List<Patient> patients) {
+            }
+            
+            @Override
+            public void loadingFinished(Boolean wasTruncated) {
+                truncated[0] = wasTruncated;
+                finished.countDown();
+            }
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(truncated[0]);
+    }
+}
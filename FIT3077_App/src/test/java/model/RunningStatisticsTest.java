@@ -0,0 +1,90 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Tests for RunningStatistics.
+ * @author Bryan
+ */
+public class RunningStatisticsTest {
+    private static final double DELTA = 1e-9;
+    
+    @Test
+    public void emptyStatisticsHaveNoValues() {
+        RunningStatistics stats = new RunningStatistics();
+        assertEquals(Integer.valueOf(0), stats.getCount());
+        assertEquals(0.0, stats.getSum(), DELTA);
+        assertNull(stats.getMean());
+        assertNull(stats.getMin());
+        assertNull(stats.getMax());
+        assertNull(stats.getVariance());
+    }
+    
+    @Test
+    public void statisticsFollowPutValues() {
+        RunningStatistics stats = new RunningStatistics();
+        stats.put("2093-3,1", 2.0);
+        stats.put("2093-3,2", 4.0);
+        stats.put("2093-3,3", 6.0);
+        assertEquals(Integer.valueOf(3), stats.getCount());
+        assertEquals(12.0, stats.getSum(), DELTA);
+        assertEquals(4.0, stats.getMean(), DELTA);
+        assertEquals(2.0, stats.getMin(), DELTA);
+        assertEquals(6.0, stats.getMax(), DELTA);
+        assertEquals(8.0 / 3, stats.getVariance(), DELTA);
+    }
+    
+    @Test
+    public void putReplacesPreviousValueOfKey() {
+        RunningStatistics stats = new RunningStatistics();
+        stats.put("2093-3,1", 2.0);
+        stats.put("2093-3,2", 4.0);
+        stats.put("2093-3,1", 10.0);
+        assertEquals(Integer.valueOf(2), stats.getCount());
+        assertEquals(7.0, stats.getMean(), DELTA);
+        assertEquals(4.0, stats.getMin(), DELTA);
+        assertEquals(10.0, stats.getMax(), DELTA);
+    }
+    
+    @Test
+    public void removingMinAndMaxMovesThemToNextValues() {
+        RunningStatistics stats = new RunningStatistics();
+        stats.put("2093-3,1", 1.0);
+        stats.put("2093-3,2", 5.0);
+        stats.put("2093-3,3", 9.0);
+        stats.remove("2093-3,1");
+        assertEquals(5.0, stats.getMin(), DELTA);
+        stats.remove("2093-3,3");
+        assertEquals(5.0, stats.getMax(), DELTA);
+        assertEquals(5.0, stats.getMean(), DELTA);
+        assertEquals(0.0, stats.getVariance(), DELTA);
+    }
+    
+    @Test
+    public void duplicateMinStaysUntilLastCopyIsRemoved() {
+        RunningStatistics stats = new RunningStatistics();
+        stats.put("2093-3,1", 3.0);
+        stats.put("2093-3,2", 3.0);
+        stats.put("2093-3,3", 8.0);
+        stats.remove("2093-3,1");
+        assertEquals(3.0, stats.getMin(), DELTA);
+        stats.remove("2093-3,2");
+        assertEquals(8.0, stats.getMin(), DELTA);
+    }
+    
+    @Test
+    public void removingEveryValueResetsTheSums() {
+        RunningStatistics stats = new RunningStatistics();
+        stats.put("2093-3,1", 0.1);
+        stats.put("2093-3,2", 0.2);
+        stats.remove("2093-3,1");
+        stats.remove("2093-3,2");
+        stats.remove("2093-3,3");
+        assertEquals(Integer.valueOf(0), stats.getCount());
+        assertEquals(0.0, stats.getSum(), 0);
+        assertNull(stats.getMean());
+        assertNull(stats.getMin());
+    }
+}
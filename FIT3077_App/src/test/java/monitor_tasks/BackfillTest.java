@@ -0,0 +1,135 @@
+package monitor_tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import deserialisation.ObservationResponse;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import model.Biometric;
+import model.ObservationCodes;
+import model.ObservationHistory;
+import model.ObservationName;
+import model.ObserveStorage;
+import org.junit.After;
+import org.junit.Test;
+import requests.RequestHandler;
+
+/**
+ * Tests for filling in the history of a newly added biometric with MonitorTasks.backfillObservation.
+ * @author Bryan
+ */
+public class BackfillTest {
+    private static final OffsetDateTime FIRST = OffsetDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.ofHours(10));
+    private static final String CODE = new ObservationCodes().getCode(ObservationName.CHOLESTEROL.name());
+    
+    /**
+     * Request handler answering a patient's observation search from made up observations, one per hour, a page at a time.
+     */
+    private static class PagedRequestHandler extends RequestHandler {
+        private final Integer observations;
+        private Integer pageSize;
+        private Integer requests = 0;
+        
+        /**
+         * Constructor for PagedRequestHandler.
+         * @param observations Integer - number of observations of the patient. The newest has the quantity observations - 1.
+         */
+        PagedRequestHandler(Integer observations) {
+            this.observations = observations;
+        }
+        
+        @Override
+        public ObservationResponse getBiometricRequest(String patientId, String observationCode, String count) {
+            this.pageSize = Integer.valueOf(count);
+            return page(0);
+        }
+        
+        @Override
+        public ObservationResponse getObservationNextPageRequest(ObservationResponse prevObservationResponse) {
+            String next = prevObservationResponse.getNextPage();
+            return page(Integer.valueOf(next.substring(next.indexOf("offset=") + "offset=".length())));
+        }
+        
+        /**
+         * Builds a page of the search, newest observation first.
+         * @param offset Integer - number of observations on the previous pages.
+         * @return ObservationResponse
+         */
+        private ObservationResponse page(Integer offset) {
+            this.requests ++;
+            StringBuilder json = new StringBuilder("{\"resourceType\":\"Bundle\",\"total\":").append(this.observations).append(",\"link\":[");
+            Integer end = Math.min(this.observations, offset + this.pageSize);
+            if (end < this.observations) {
+                json.append("{\"relation\":\"next\",\"url\":\"").append(getRootUrl()).append("?_getpages=1&offset=").append(end).append("\"}");
+            }
+            json.append("],\"entry\":[");
+            for (Integer i = offset; i < end; i++) {
+                Integer index = this.observations - 1 - i;
+                json.append(i > offset ? "," : "")
+                    .append("{\"resource\":{\"resourceType\":\"Observation\",\"effectiveDateTime\":\"").append(FIRST.plusHours(index))
+                    .append("\",\"subject\":{\"reference\":\"Patient/1\"},\"valueQuantity\":{\"value\":").append(index)
+                    .append(",\"unit\":\"mg/dL\"}}}");
+            }
+            return getGson().fromJson(json.append("]}").toString(), ObservationResponse.class);
+        }
+    }
+    
+    /**
+     * Backfills a new cholesterol biometric.
+     * @param requestHandler PagedRequestHandler - answers the search.
+     * @return Biometric
+     */
+    private Biometric backfill(PagedRequestHandler requestHandler) {
+        ObserveStorage storage = new ObserveStorage();
+        Biometric observation = new Biometric(CODE, "1", "Given", "Family");
+        storage.storeCholesterolBiometric(CODE + ",1", observation);
+        RefreshEngine refreshEngine = new RefreshEngine();
+        try {
+            new CholesterolMonitorTasks(storage, null, refreshEngine, requestHandler).backfillObservation(observation);
+        } finally {
+            refreshEngine.shutdown();
+        }
+        return observation;
+    }
+    
+    @After
+    public void restoreHistoryCapacity() {
+        Biometric.setHistoryCapacity(Biometric.DEFAULT_HISTORY_CAPACITY);
+    }
+    
+    @Test
+    public void followsPagesUntilTheSearchEnds() {
+        Biometric.setHistoryCapacity(500);
+        PagedRequestHandler requestHandler = new PagedRequestHandler(450);
+        Biometric observation = backfill(requestHandler);
+        ObservationHistory history = observation.getHistory();
+        assertEquals(3, (int) requestHandler.requests);
+        assertEquals(MonitorTasks.BACKFILL_PAGE_SIZE, requestHandler.pageSize);
+        assertEquals(450, history.size());
+        assertEquals(0, history.getQuantity(0, 0), 1e-9);
+        assertEquals(449, observation.getQuantity(ObservationName.CHOLESTEROL.name()), 1e-9);
+        assertTrue(observation.isBackfilled());
+    }
+    
+    @Test
+    public void stopsOnceTheHistoryIsFull() {
+        Biometric.setHistoryCapacity(300);
+        PagedRequestHandler requestHandler = new PagedRequestHandler(1000);
+        Biometric observation = backfill(requestHandler);
+        ObservationHistory history = observation.getHistory();
+        assertEquals(2, (int) requestHandler.requests);
+        assertEquals(300, history.size());
+        assertEquals(700, history.getQuantity(0, 0), 1e-9);
+        assertEquals(999, history.getQuantity(299, 0), 1e-9);
+    }
+    
+    @Test
+    public void smallHistoryIsFilledWithOneRequest() {
+        Biometric.setHistoryCapacity(50);
+        PagedRequestHandler requestHandler = new PagedRequestHandler(1000);
+        Biometric observation = backfill(requestHandler);
+        assertEquals(1, (int) requestHandler.requests);
+        assertEquals(50, (int) requestHandler.pageSize);
+        assertEquals(50, observation.getHistory().size());
+    }
+}
@@ -0,0 +1,95 @@
+package monitor_tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import deserialisation.ObservationResponse;
+import iterator.BiometricContainer;
+import model.Biometric;
+import model.ObservationCodes;
+import model.ObservationName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import requests.RequestHandler;
+
+/**
+ * Tests for the DELTA refresh mode of RefreshEngine.
+ * @author Bryan
+ */
+public class DeltaRefreshTest {
+    private static final String CODE = new ObservationCodes().getCode(ObservationName.CHOLESTEROL.name());
+    private static final String KEY = CODE + ",1";
+    private static final String BUNDLE = "{\"resourceType\":\"Bundle\",\"entry\":[{\"resource\":{\"resourceType\":\"Observation\","
+            + "\"subject\":{\"reference\":\"Patient/1\"},\"effectiveDateTime\":\"2019-05-06T10:00:00+10:00\","
+            + "\"meta\":{\"lastUpdated\":\"2020-05-12T01:08:43.581+00:00\"},\"valueQuantity\":{\"value\":5,\"unit\":\"mg/dL\"}}}]}";
+    private RefreshEngine refreshEngine;
+    private BiometricContainer container;
+    
+    /**
+     * Request handler answering from a recorded bundle, whose latest observation requests can be made to fail.
+     */
+    private static class StubRequestHandler extends RequestHandler {
+        private Boolean failing = false;
+        private Integer latestRequests = 0;
+        private Integer changesRequests = 0;
+        
+        @Override
+        public ObservationResponse getLatestBiometricRequest(String patientId, String observationCode) {
+            this.latestRequests ++;
+            ObservationResponse response = getGson().fromJson(BUNDLE, ObservationResponse.class);
+            // A failed request is answered with the last known result, as RequestHandler does
+            return this.failing ? ObservationResponse.stale(response) : response;
+        }
+        
+        @Override
+        public ObservationResponse getBiometricChangesRequest(String observationCode, String since, String count) {
+            if (since != null) {
+                this.changesRequests ++;
+            }
+            return getGson().fromJson(BUNDLE, ObservationResponse.class);
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        this.refreshEngine = new RefreshEngine();
+        this.refreshEngine.setRefreshMode(RefreshMode.DELTA);
+        Biometric observation = new Biometric(CODE, "1", "Given", "Family");
+        observation.setTime("2019-05-06T10:00:00+10:00");
+        this.container = new BiometricContainer();
+        this.container.put(KEY, observation);
+    }
+    
+    @After
+    public void tearDown() {
+        this.refreshEngine.shutdown();
+    }
+    
+    @Test
+    public void freshFullRefreshIsFollowedByDeltaSearches() {
+        StubRequestHandler requestHandler = new StubRequestHandler();
+        this.refreshEngine.fetchChanges(requestHandler, this.container);
+        this.refreshEngine.fetchChanges(requestHandler, this.container);
+        assertEquals(1, (int) requestHandler.latestRequests);
+        assertEquals(1, (int) requestHandler.changesRequests);
+    }
+    
+    @Test
+    public void staleFullRefreshIsRepeated() {
+        StubRequestHandler requestHandler = new StubRequestHandler();
+        requestHandler.failing = true;
+        this.refreshEngine.fetchChanges(requestHandler, this.container);
+        assertTrue(this.refreshEngine.hasFailed(KEY));
+        
+        requestHandler.failing = false;
+        this.refreshEngine.fetchChanges(requestHandler, this.container);
+        assertEquals("the key must not be in sync after a stale response", 2, (int) requestHandler.latestRequests);
+        assertEquals(0, (int) requestHandler.changesRequests);
+        assertFalse(this.refreshEngine.hasFailed(KEY));
+        
+        this.refreshEngine.fetchChanges(requestHandler, this.container);
+        assertEquals(2, (int) requestHandler.latestRequests);
+        assertEquals(1, (int) requestHandler.changesRequests);
+    }
+}
@@ -0,0 +1,73 @@
+package requests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for CircuitBreaker.
+ * @author Bryan
+ */
+public class CircuitBreakerTest {
+    
+    /**
+     * Opens a circuit breaker by recording failures up to its threshold.
+     * @param breaker CircuitBreaker - circuit breaker with a threshold of 3.
+     */
+    private void open(CircuitBreaker breaker) {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+    }
+    
+    @Test
+    public void opensAfterThresholdFailuresInARow() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertFalse(breaker.isOpen());
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+    
+    @Test
+    public void halfOpenLetsOneTrialThroughAndClosesOnSuccess() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, 20);
+        open(breaker);
+        Thread.sleep(40);
+        assertTrue(breaker.allowRequest());
+        assertFalse("only one trial at a time", breaker.allowRequest());
+        breaker.recordSuccess();
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void failedTrialReopensForAnotherOpenTime() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, 50);
+        open(breaker);
+        Thread.sleep(70);
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(70);
+        assertTrue(breaker.allowRequest());
+    }
+    
+    @Test
+    public void releasedTrialLetsAnotherTrialThrough() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, 20);
+        open(breaker);
+        Thread.sleep(40);
+        assertTrue(breaker.allowRequest());
+        breaker.releaseTrial();
+        assertTrue(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+}
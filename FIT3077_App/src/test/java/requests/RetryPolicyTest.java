@@ -0,0 +1,185 @@
+package requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for RetryPolicy. Responses are made up by an interceptor, so no request leaves the machine.
+ * @author Bryan
+ */
+public class RetryPolicyTest {
+    private static final Request REQUEST = new Request.Builder().url("http://localhost/fhir/Observation").build();
+    
+    /**
+     * Builds a client whose calls time out a number of times before answering with a status code.
+     * @param timeouts int - number of calls which time out first.
+     * @param code int - status code of the calls after that.
+     * @param calls AtomicInteger - counter of calls.
+     * @return OkHttpClient
+     */
+    private OkHttpClient client(final int timeouts, final int code, final AtomicInteger calls) {
+        return client(timeouts, code, null, calls);
+    }
+    
+    /**
+     * Builds a client whose calls time out a number of times before answering with a status code and a Retry-After header.
+     * @param timeouts int - number of calls which time out first.
+     * @param code int - status code of the calls after that.
+     * @param retryAfter String - value of the Retry-After header, or null for none.
+     * @param calls AtomicInteger - counter of calls.
+     * @return OkHttpClient
+     */
+    private OkHttpClient client(final int timeouts, final int code, final String retryAfter, final AtomicInteger calls) {
+        OkHttpClient client = new OkHttpClient();
+        client.interceptors().add(new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                if (calls.incrementAndGet() <= timeouts) {
+                    throw new SocketTimeoutException("timeout");
+                }
+                Response.Builder response = new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(code)
+                        .message("")
+                        .body(ResponseBody.create(MediaType.parse("application/json"), "{}"));
+                if (retryAfter != null) {
+                    response.header("Retry-After", retryAfter);
+                }
+                return response.build();
+            }
+        });
+        return client;
+    }
+    
+    @Test
+    public void timeoutIsRetried() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new CircuitBreaker(), new RateLimiter());
+        Response response = policy.execute(client(1, 200, calls), REQUEST);
+        assertEquals(200, response.code());
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void timeoutsAreRecordedAsFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = new CircuitBreaker(3, 60000);
+        RetryPolicy policy = new RetryPolicy(breaker, new RateLimiter());
+        try {
+            policy.execute(client(3, 200, calls), REQUEST);
+            fail("expected the timeout of the last attempt");
+        } catch (IOException ex) {
+            assertTrue(ex instanceof SocketTimeoutException);
+        }
+        assertEquals(3, calls.get());
+        assertTrue(breaker.isOpen());
+    }
+    
+    @Test
+    public void serverErrorIsRetriedAndClientErrorIsNot() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new CircuitBreaker(), new RateLimiter());
+        policy.setMaxAttempts(2);
+        assertEquals(503, policy.execute(client(0, 503, calls), REQUEST).code());
+        assertEquals(2, calls.get());
+        calls.set(0);
+        assertEquals(404, policy.execute(client(0, 404, calls), REQUEST).code());
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    public void openCircuitFailsFast() {
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = new CircuitBreaker(1, 60000);
+        breaker.recordFailure();
+        RetryPolicy policy = new RetryPolicy(breaker, new RateLimiter());
+        try {
+            policy.execute(client(0, 200, calls), REQUEST);
+            fail("expected the open circuit to fail fast");
+        } catch (IOException ex) {
+            assertEquals(0, calls.get());
+        }
+    }
+    
+    @Test
+    public void interruptedTrialIsReleased() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = new CircuitBreaker(1, 10);
+        breaker.recordFailure();
+        Thread.sleep(30);
+        RetryPolicy policy = new RetryPolicy(breaker, new RateLimiter());
+        // Use up the only token so that the trial is granted and then interrupted while waiting for the next one
+        Thread.currentThread().interrupt();
+        RateLimiter drained = policy.getRateLimiter();
+        drained.setTotalRate(0.001, 1);
+        try {
+            drained.acquire();
+        } catch (InterruptedIOException ex) {
+            fail("the first token should be free");
+        }
+        try {
+            policy.execute(client(0, 200, calls), REQUEST);
+            fail("expected the interrupt to stop the request");
+        } catch (IOException ex) {
+            assertTrue(ex instanceof InterruptedIOException);
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(0, calls.get());
+        assertTrue(breaker.isOpen());
+        assertTrue("another trial must be let through", breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+    
+    @Test
+    public void retryAfterSecondsIsWaited() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new CircuitBreaker(), new RateLimiter());
+        policy.setMaxAttempts(2);
+        long start = System.currentTimeMillis();
+        assertEquals(429, policy.execute(client(0, 429, "1", calls), REQUEST).code());
+        long waited = System.currentTimeMillis() - start;
+        assertEquals(2, calls.get());
+        assertTrue("waited " + waited, waited >= 1000);
+    }
+    
+    @Test
+    public void retryAfterBeyondTheDeadlineIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new CircuitBreaker(), new RateLimiter());
+        policy.setDeadline(2000);
+        try {
+            policy.execute(client(0, 429, "5", calls), REQUEST);
+            fail("expected the deadline to pass");
+        } catch (IOException ex) {
+            assertEquals(1, calls.get());
+        }
+    }
+    
+    @Test
+    public void retryAfterIsReadAsSecondsOrDate() {
+        long now = 1589245723000L; // Tue, 12 May 2020 01:08:43 GMT
+        assertEquals(Long.valueOf(120000), RetryPolicy.parseRetryAfter("120", now));
+        assertEquals(Long.valueOf(0), RetryPolicy.parseRetryAfter("-3", now));
+        assertEquals(Long.valueOf(30000), RetryPolicy.parseRetryAfter("Tue, 12 May 2020 01:09:13 GMT", now));
+        assertEquals(Long.valueOf(0), RetryPolicy.parseRetryAfter("Tue, 12 May 2020 01:00:00 GMT", now));
+        assertNull(RetryPolicy.parseRetryAfter("soon", now));
+        assertNull(RetryPolicy.parseRetryAfter(null, now));
+    }
+}
@@ -0,0 +1,148 @@
+package requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests for SingleFlight.
+ * @author Bryan
+ */
+public class SingleFlightTest {
+    
+    /**
+     * Builds a call which counts how often it is made and returns a new object each time.
+     * @param calls AtomicInteger - counter of calls.
+     * @return Callable<Object>
+     */
+    private Callable<Object> counting(final AtomicInteger calls) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() {
+                calls.incrementAndGet();
+                return new Object();
+            }
+        };
+    }
+    
+    @Test
+    public void recentResultAnswersBackToBackDuplicates() {
+        SingleFlight singleFlight = new SingleFlight(60000);
+        AtomicInteger calls = new AtomicInteger();
+        Object first = singleFlight.execute("GET /a", counting(calls));
+        assertSame(first, singleFlight.execute("GET /a", counting(calls)));
+        assertSame(first, singleFlight.peek("GET /a"));
+        singleFlight.execute("GET /b", counting(calls));
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void expiredResultIsFetchedAgain() throws InterruptedException {
+        SingleFlight singleFlight = new SingleFlight(20);
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute("GET /a", counting(calls));
+        Thread.sleep(50);
+        assertNull(singleFlight.peek("GET /a"));
+        singleFlight.execute("GET /a", counting(calls));
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void failedCallsAreNotKept() {
+        SingleFlight singleFlight = new SingleFlight(60000);
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Object> failing = new Callable<Object>() {
+            @Override
+            public Object call() {
+                calls.incrementAndGet();
+                return null;
+            }
+        };
+        assertNull(singleFlight.execute("GET /a", failing));
+        assertNull(singleFlight.execute("GET /a", failing));
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void exceptionIsRethrownAndNotKept() {
+        SingleFlight singleFlight = new SingleFlight(60000);
+        try {
+            singleFlight.execute("GET /a", new Callable<Object>() {
+                @Override
+                public Object call() {
+                    throw new IllegalStateException("server error");
+                }
+            });
+            fail("expected the exception of the call");
+        } catch (IllegalStateException ex) {
+            assertEquals("server error", ex.getMessage());
+        }
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute("GET /a", counting(calls));
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    public void identicalCallsInFlightAreCoalesced() throws Exception {
+        // No cache, so only coalescing can share the result
+        final SingleFlight singleFlight = new SingleFlight(0);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<Object> slow = new Callable<Object>() {
+            @Override
+            public Object call() throws InterruptedException {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return "result";
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return singleFlight.execute("GET /a", slow);
+                }
+            });
+            started.await(5, TimeUnit.SECONDS);
+            Future<Object> second = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    return singleFlight.execute("GET /a", slow);
+                }
+            });
+            // Give the second caller time to join the call in flight
+            Thread.sleep(100);
+            release.countDown();
+            assertEquals("result", first.get(5, TimeUnit.SECONDS));
+            assertEquals("result", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void rememberAndClear() {
+        SingleFlight singleFlight = new SingleFlight(60000);
+        Object result = new Object();
+        singleFlight.remember("GET /a", result);
+        assertSame(result, singleFlight.peek("GET /a"));
+        singleFlight.clear();
+        assertNull(singleFlight.peek("GET /a"));
+        singleFlight.setTtl(0);
+        singleFlight.remember("GET /a", result);
+        assertNull(singleFlight.peek("GET /a"));
+    }
+}
@@ -0,0 +1,68 @@
+package requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests for TokenBucket.
+ * @author Bryan
+ */
+public class TokenBucketTest {
+    
+    @Test
+    public void startsFullAndAllowsABurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(0.001, 3);
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+    }
+    
+    @Test
+    public void waitIsAboutOneTokenAtTheRate() {
+        TokenBucket bucket = new TokenBucket(10.0, 1);
+        assertEquals(0, bucket.tryTake());
+        long wait = bucket.tryTake();
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    
+    @Test
+    public void refillsAfterTheWait() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50.0, 1);
+        assertEquals(0, bucket.tryTake());
+        long wait = bucket.tryTake();
+        assertTrue(wait > 0);
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+    }
+    
+    @Test
+    public void refillStopsAtCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000.0, 2);
+        Thread.sleep(20);
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+    }
+    
+    @Test
+    public void setRateDropsTokensAboveTheNewCapacity() {
+        TokenBucket bucket = new TokenBucket(0.001, 5);
+        bucket.setRate(0.001, 2);
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+    }
+    
+    @Test
+    public void rateIsInRequestsPerSecond() {
+        TokenBucket bucket = new TokenBucket(4.0, 0);
+        assertEquals(4.0, bucket.getRate(), 1e-9);
+        assertEquals(0, bucket.tryTake());
+        assertTrue("capacity is at least one", bucket.tryTake() > 0);
+    }
+}
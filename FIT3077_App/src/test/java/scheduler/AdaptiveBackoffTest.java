@@ -0,0 +1,65 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests for AdaptiveBackoff.
+ * @author Bryan
+ */
+public class AdaptiveBackoffTest {
+    private static final String KEY = "55284-4,1";
+    private static final long BASE = 60000;
+    
+    @Test
+    public void stablePollsDoubleUpToTheCap() {
+        AdaptiveBackoff backoff = new AdaptiveBackoff();
+        long[] expected = {1, 2, 4, 8, 8, 8};
+        for (long factor : expected) {
+            assertEquals(BASE * factor, backoff.nextInterval(KEY, BASE, false, true));
+        }
+    }
+    
+    @Test
+    public void unchangedPollsBackOffFurther() {
+        AdaptiveBackoff backoff = new AdaptiveBackoff();
+        long interval = 0;
+        for (int i = 0; i < 10; i++) {
+            interval = backoff.nextInterval(KEY, BASE, false, false);
+        }
+        assertEquals(BASE * AdaptiveBackoff.UNCHANGED_MAX_BACKOFF, interval);
+        // A change brings the cap back down
+        assertEquals(BASE * AdaptiveBackoff.MAX_BACKOFF, backoff.nextInterval(KEY, BASE, false, true));
+    }
+    
+    @Test
+    public void attentionPollsMoreOftenAndStartsAgainFromTheBase() {
+        AdaptiveBackoff backoff = new AdaptiveBackoff();
+        backoff.nextInterval(KEY, BASE, false, true);
+        backoff.nextInterval(KEY, BASE, false, true);
+        assertEquals(BASE / AdaptiveBackoff.URGENT_DIVISOR, backoff.nextInterval(KEY, BASE, true, true));
+        assertEquals(BASE, backoff.nextInterval(KEY, BASE, false, true));
+    }
+    
+    @Test
+    public void attentionIntervalIsNotShortenedBelowTheMinimum() {
+        AdaptiveBackoff backoff = new AdaptiveBackoff();
+        assertEquals((long) AdaptiveBackoff.MIN_INTERVAL, backoff.nextInterval(KEY, 10000, true, true));
+        // A base interval already below the minimum is kept
+        assertEquals(2000, backoff.nextInterval(KEY, 2000, true, true));
+    }
+    
+    @Test
+    public void resetForgetsTheBackoff() {
+        AdaptiveBackoff backoff = new AdaptiveBackoff();
+        for (int i = 0; i < 4; i++) {
+            backoff.nextInterval(KEY, BASE, false, true);
+            backoff.nextInterval("2093-3,1", BASE, false, true);
+        }
+        backoff.reset(KEY);
+        assertEquals(BASE, backoff.nextInterval(KEY, BASE, false, true));
+        assertEquals(BASE * 8, backoff.nextInterval("2093-3,1", BASE, false, true));
+        backoff.reset();
+        assertEquals(BASE, backoff.nextInterval("2093-3,1", BASE, false, true));
+    }
+}
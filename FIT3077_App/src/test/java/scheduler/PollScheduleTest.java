@@ -0,0 +1,108 @@
+package scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Test;
+
+/**
+ * Tests for PollSchedule.
+ * @author Bryan
+ */
+public class PollScheduleTest {
+    private static final String CHOLESTEROL = "2093-3,1";
+    private static final String BLOOD = "55284-4,1";
+    
+    @Test
+    public void emptyScheduleHasNothingDue() {
+        PollSchedule schedule = new PollSchedule(60);
+        assertNull(schedule.nextDue());
+        assertTrue(schedule.pollDue(Long.MAX_VALUE).isEmpty());
+    }
+    
+    @Test
+    public void dueBiometricsAreRescheduledOneIntervalLater() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 0);
+        schedule.add(BLOOD, 5000);
+        assertEquals(Collections.singleton(CHOLESTEROL), schedule.pollDue(1000));
+        assertEquals(Long.valueOf(61000), schedule.getDue(CHOLESTEROL));
+        assertEquals(Long.valueOf(5000), schedule.nextDue());
+    }
+    
+    @Test
+    public void addKeepsTheDueTimeOfScheduledBiometrics() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 1000);
+        schedule.add(CHOLESTEROL, 0);
+        assertEquals(Long.valueOf(1000), schedule.getDue(CHOLESTEROL));
+    }
+    
+    @Test
+    public void rescheduledAndRemovedEntriesAreSkipped() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 0);
+        schedule.add(BLOOD, 0);
+        schedule.reschedule(CHOLESTEROL, 9000);
+        schedule.retain(Collections.singleton(CHOLESTEROL));
+        assertTrue(schedule.pollDue(1000).isEmpty());
+        assertEquals(Long.valueOf(9000), schedule.nextDue());
+        assertNull(schedule.getDue(BLOOD));
+        // Biometrics which are not scheduled are not added by reschedule
+        schedule.reschedule(BLOOD, 0);
+        assertNull(schedule.getDue(BLOOD));
+    }
+    
+    @Test
+    public void intervalsFallBackFromKeyToCodeToDefault() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.setCodeInterval("2093-3", 240, 0);
+        assertEquals(240000, schedule.getInterval(CHOLESTEROL));
+        assertEquals(60000, schedule.getInterval(BLOOD));
+        schedule.add(CHOLESTEROL, 0);
+        schedule.setKeyInterval(CHOLESTEROL, 10000L, 0);
+        assertEquals(10000, schedule.getInterval(CHOLESTEROL));
+        schedule.setKeyInterval(CHOLESTEROL, null, 0);
+        schedule.setCodeInterval("2093-3", null, 0);
+        assertEquals(60000, schedule.getInterval(CHOLESTEROL));
+    }
+    
+    @Test
+    public void shorterDefaultIntervalBringsBackedOffBiometricsForward() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 0);
+        schedule.add(BLOOD, 0);
+        // Backed off to 32 times the interval
+        schedule.reschedule(CHOLESTEROL, 32 * 60000L);
+        schedule.reschedule(BLOOD, 3000);
+        schedule.setDefaultInterval(10, 1000);
+        assertEquals(Long.valueOf(11000), schedule.getDue(CHOLESTEROL));
+        // Biometrics due sooner than one new interval keep their due time
+        assertEquals(Long.valueOf(3000), schedule.getDue(BLOOD));
+    }
+    
+    @Test
+    public void shorterCodeIntervalBringsOnlyThatCodeForward() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 60000);
+        schedule.add(BLOOD, 60000);
+        schedule.setCodeInterval("2093-3", 20, 0);
+        assertEquals(Long.valueOf(20000), schedule.getDue(CHOLESTEROL));
+        assertEquals(Long.valueOf(60000), schedule.getDue(BLOOD));
+    }
+    
+    @Test
+    public void retainCompactsTheQueue() {
+        PollSchedule schedule = new PollSchedule(60);
+        schedule.add(CHOLESTEROL, 0);
+        for (int i = 0; i < 100; i++) {
+            schedule.reschedule(CHOLESTEROL, i);
+        }
+        schedule.retain(new HashSet<String>(Arrays.asList(CHOLESTEROL)));
+        assertEquals(Long.valueOf(99), schedule.nextDue());
+        assertEquals(Collections.singleton(CHOLESTEROL), schedule.pollDue(99));
+    }
+}
@@ -0,0 +1,93 @@
+package view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests for LttbDownsampler.
+ * @author Bryan
+ */
+public class LttbDownsamplerTest {
+    
+    @Test
+    public void emptySeriesKeepsNothing() {
+        long[] timesOut = new long[3];
+        double[] valuesOut = new double[3];
+        assertEquals(0, LttbDownsampler.downsample(new long[0], new double[0], 0, 3, timesOut, valuesOut));
+    }
+    
+    @Test
+    public void shortSeriesIsCopiedUnchanged() {
+        long[] times = {10, 20, 30, 40};
+        double[] values = {1, 5, 2, 8};
+        long[] timesOut = new long[4];
+        double[] valuesOut = new double[4];
+        assertEquals(4, LttbDownsampler.downsample(times, values, 4, 4, timesOut, valuesOut));
+        assertArrayEquals(times, timesOut);
+        assertArrayEquals(values, valuesOut, 0);
+    }
+    
+    @Test
+    public void onlyLengthPointsAreRead() {
+        long[] times = {10, 20, 30, 40};
+        double[] values = {1, 5, 2, 8};
+        long[] timesOut = new long[4];
+        double[] valuesOut = new double[4];
+        assertEquals(2, LttbDownsampler.downsample(times, values, 2, 10, timesOut, valuesOut));
+        assertEquals(20, timesOut[1]);
+        assertEquals(5, valuesOut[1], 0);
+    }
+    
+    @Test
+    public void longSeriesIsReducedToThresholdKeepingEnds() {
+        int length = 100;
+        long[] times = new long[length];
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            times[i] = 1_500_000_000_000L + i * 60_000L;
+            values[i] = Math.sin(i / 5.0);
+        }
+        long[] timesOut = new long[10];
+        double[] valuesOut = new double[10];
+        int kept = LttbDownsampler.downsample(times, values, length, 10, timesOut, valuesOut);
+        assertEquals(10, kept);
+        assertEquals(times[0], timesOut[0]);
+        assertEquals(times[length - 1], timesOut[kept - 1]);
+        for (int i = 1; i < kept; i++) {
+            assertTrue("times must stay in order", timesOut[i] > timesOut[i - 1]);
+        }
+    }
+    
+    @Test
+    public void spikeIsKept() {
+        int length = 50;
+        long[] times = new long[length];
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            times[i] = i;
+            values[i] = 120;
+        }
+        values[23] = 190;
+        long[] timesOut = new long[5];
+        double[] valuesOut = new double[5];
+        int kept = LttbDownsampler.downsample(times, values, length, 5, timesOut, valuesOut);
+        Boolean found = false;
+        for (int i = 0; i < kept; i++) {
+            found |= (timesOut[i] == 23 && valuesOut[i] == 190);
+        }
+        assertTrue("the largest triangle must be the spike", found);
+    }
+    
+    @Test
+    public void thresholdBelowThreeKeepsThreePoints() {
+        long[] times = {0, 1, 2, 3, 4, 5};
+        double[] values = {0, 1, 0, 1, 0, 1};
+        long[] timesOut = new long[3];
+        double[] valuesOut = new double[3];
+        assertEquals(3, LttbDownsampler.downsample(times, values, 6, 1, timesOut, valuesOut));
+        assertEquals(0, timesOut[0]);
+        assertEquals(5, timesOut[2]);
+    }
+}
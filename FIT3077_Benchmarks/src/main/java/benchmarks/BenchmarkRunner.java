@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner runs the benchmarks with the usual JMH command line options, e.g. a benchmark name pattern or "-p patients=100".
+ * Unless another result format or file is given, results are written as JSON to a timestamped file so that runs can be compared over time.
+ * @author Bryan
+ */
+public class BenchmarkRunner {
+    
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import iterator.BiometricContainer;
+import iterator.BiometricIterator;
+import java.util.concurrent.TimeUnit;
+import model.Biometric;
+import model.ObservationCodes;
+import model.ObservationName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BiometricContainerBenchmark measures lookups and iteration of a BiometricContainer holding 100 to 100,000 cholesterol biometrics.
+ * @author Bryan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BiometricContainerBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+    private BiometricContainer container;
+    private String[] keys;
+    private int next = 0; // primitive, so cycling through the keys does not allocate
+    
+    @Setup
+    public void setUp() {
+        String code = new ObservationCodes().getCode(ObservationName.CHOLESTEROL.name());
+        this.container = new BiometricContainer();
+        this.keys = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            String patientId = Fixtures.patientId(i);
+            this.keys[i] = code + "," + patientId;
+            this.container.put(this.keys[i], new Biometric(code, patientId, "Given" + i, "Family" + i));
+        }
+    }
+    
+    /**
+     * Gets the next key, cycling through every stored key.
+     * @return String
+     */
+    private String nextKey() {
+        this.next = (this.next + 1) % this.keys.length;
+        return this.keys[this.next];
+    }
+    
+    @Benchmark
+    public Biometric get() {
+        return this.container.get(nextKey());
+    }
+    
+    @Benchmark
+    public boolean containsKey() {
+        return this.container.containsKey(nextKey());
+    }
+    
+    @Benchmark
+    public Integer size() {
+        return this.container.size();
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void iterate(Blackhole blackhole) {
+        BiometricIterator it = this.container.getIterator();
+        while (it.hasNext()) {
+            blackhole.consume(it.next().getValue());
+        }
+    }
+}
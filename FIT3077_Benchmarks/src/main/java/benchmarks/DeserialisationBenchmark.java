@@ -0,0 +1,81 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import deserialisation.EncounterResponse;
+import deserialisation.ObservationResponse;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import requests.RequestHandler;
+
+/**
+ * DeserialisationBenchmark measures GSON deserialisation of observation and encounter search bundles built from recorded entries,
+ * using the same GSON configuration and streaming JsonReader as RequestHandler.
+ * @author Bryan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeserialisationBenchmark {
+    @Param({"1", "100"})
+    public int entries;
+    private Gson gson;
+    private String cholesterolBundle;
+    private String bloodBundle;
+    private String encounterBundle;
+    
+    @Setup
+    public void setUp() {
+        this.gson = new RequestHandler().getGson();
+        // A latest-observation search returns one patient's observations, an encounter page includes each encounter's patient
+        this.cholesterolBundle = Fixtures.bundle(this.entries, true, Fixtures.OBSERVATION_CHOLESTEROL);
+        this.bloodBundle = Fixtures.bundle(this.entries, true, Fixtures.OBSERVATION_BLOOD);
+        this.encounterBundle = Fixtures.bundle(this.entries, false, Fixtures.ENCOUNTER, Fixtures.PATIENT);
+    }
+    
+    @Benchmark
+    public ObservationResponse cholesterolObservations() throws IOException {
+        return read(this.cholesterolBundle, ObservationResponse.class);
+    }
+    
+    @Benchmark
+    public ObservationResponse bloodObservations() throws IOException {
+        return read(this.bloodBundle, ObservationResponse.class);
+    }
+    
+    @Benchmark
+    public EncounterResponse encounters() throws IOException {
+        return read(this.encounterBundle, EncounterResponse.class);
+    }
+    
+    /**
+     * Deserialises JSON the way RequestHandler reads a response body.
+     * @param json String - JSON to read.
+     * @param type Class<T> - class to deserialise into.
+     * @return T
+     * @throws IOException if the JSON could not be read.
+     */
+    private <T> T read(String json, Class<T> type) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        try {
+            return this.gson.fromJson(reader, type);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixtures builds FHIR search bundles from the entries recorded from the FHIR server in src/main/resources/fixtures.
+ * Each copy of an entry is given its own patient ID, so bundles of any size look like a search across many patients.
+ * @author Bryan
+ */
+public class Fixtures {
+    public static final String OBSERVATION_CHOLESTEROL = "observation-cholesterol.json";
+    public static final String OBSERVATION_BLOOD = "observation-blood.json";
+    public static final String ENCOUNTER = "encounter.json";
+    public static final String PATIENT = "patient.json";
+    private static final String RECORDED_PATIENT_ID = "29141";
+    
+    /**
+     * Builds a searchset bundle with copies of recorded entries.
+     * @param entries Integer - number of copies of each recorded entry.
+     * @param samePatient Boolean - True to keep the recorded patient ID in every copy (e.g. the history of one patient), False to give each copy its own patient.
+     * @param fixtures String... - names of the recorded entries, copied in turn.
+     * @return String - JSON of the bundle.
+     */
+    public static String bundle(Integer entries, Boolean samePatient, String... fixtures) {
+        String[] recorded = new String[fixtures.length];
+        for (Integer i = 0; i < fixtures.length; i++) {
+            recorded[i] = read(fixtures[i]);
+        }
+        StringBuilder json = new StringBuilder();
+        json.append("{\"resourceType\":\"Bundle\",\"type\":\"searchset\",\"total\":").append(entries)
+            .append(",\"link\":[{\"relation\":\"self\",\"url\":\"https://fhir.monash.edu/hapi-fhir-jpaserver/fhir/Observation\"}],\"entry\":[");
+        for (Integer i = 0; i < entries; i++) {
+            for (Integer f = 0; f < recorded.length; f++) {
+                if (i > 0 || f > 0) {
+                    json.append(',');
+                }
+                json.append(samePatient ? recorded[f] : recorded[f].replace(RECORDED_PATIENT_ID, patientId(i)));
+            }
+        }
+        return json.append("]}").toString();
+    }
+    
+    /**
+     * Gets the patient ID given to a copy of a recorded entry.
+     * @param index Integer - index of the copy.
+     * @return String
+     */
+    public static String patientId(Integer index) {
+        return String.valueOf(100000 + index);
+    }
+    
+    /**
+     * Reads a recorded entry.
+     * @param name String - file name in the fixtures directory.
+     * @return String - JSON of the entry.
+     */
+    private static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read fixture " + name, ex);
+        }
+    }
+}
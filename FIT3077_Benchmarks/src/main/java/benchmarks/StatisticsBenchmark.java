@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import model.Biometric;
+import model.ObservationCodes;
+import model.ObservationName;
+import model.ObserveStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StatisticsBenchmark measures the steps of a cholesterol statistics update with 100 to 100,000 monitored patients:
+ * recording an updated quantity in the running statistics, and reading the average back out.
+ * CholesterolMonitorTasks.updateStatistics() itself is not called because it also updates the view, which needs a display.
+ * @author Bryan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatisticsBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+    private ObserveStorage storage;
+    private Biometric[] biometrics;
+    private String code;
+    private int next = 0; // primitive, so cycling through the keys does not allocate
+    
+    @Setup
+    public void setUp() {
+        this.code = new ObservationCodes().getCode(ObservationName.CHOLESTEROL.name());
+        this.storage = new ObserveStorage();
+        this.biometrics = new Biometric[this.size];
+        for (int i = 0; i < this.size; i++) {
+            String patientId = Fixtures.patientId(i);
+            Biometric biometric = new Biometric(this.code, patientId, "Given" + i, "Family" + i);
+            biometric.setQuantity(ObservationName.CHOLESTEROL.name(), 150 + (i % 100));
+            this.storage.storeCholesterolBiometric(this.code + "," + patientId, biometric);
+            this.storage.recordStatistic(biometric, ObservationName.CHOLESTEROL.name());
+            this.biometrics[i] = biometric;
+        }
+    }
+    
+    /**
+     * Records a new quantity of the next biometric, as updateObservation does after each refreshed observation.
+     */
+    @Benchmark
+    public void recordStatistic() {
+        this.next = (this.next + 1) % this.biometrics.length;
+        Biometric biometric = this.biometrics[this.next];
+        biometric.setQuantity(ObservationName.CHOLESTEROL.name(), 150 + ((this.next * 7) % 100));
+        this.storage.recordStatistic(biometric, ObservationName.CHOLESTEROL.name());
+    }
+    
+    /**
+     * Reads the cholesterol average, as updateStatistics does once per tick.
+     * @return Double
+     */
+    @Benchmark
+    public Double average() {
+        return this.storage.getStatistics(this.code, ObservationName.CHOLESTEROL.name()).getMean();
+    }
+}
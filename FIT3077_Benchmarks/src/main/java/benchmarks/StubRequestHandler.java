@@ -0,0 +1,68 @@
+package benchmarks;
+
+import com.google.gson.stream.JsonReader;
+import deserialisation.ObservationResponse;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.ws.WebServiceException;
+import requests.RequestHandler;
+
+/**
+ * StubRequestHandler answers observation requests from a recorded bundle instead of the FHIR server,
+ * so that a monitor update tick can be measured without the network. Each response is still deserialised from JSON by GSON.
+ * @author Bryan
+ */
+public class StubRequestHandler extends RequestHandler {
+    private final String latestBundle;
+    private final String historyBundle;
+    
+    /**
+     * Constructor for StubRequestHandler.
+     * @param fixture String - name of the recorded observation entry to answer with.
+     * @param historyCount Integer - number of observations to answer with when a patient's history is requested.
+     */
+    public StubRequestHandler(String fixture, Integer historyCount) {
+        super();
+        this.latestBundle = Fixtures.bundle(1, true, fixture);
+        this.historyBundle = Fixtures.bundle(historyCount, true, fixture);
+    }
+    
+    @Override
+    public ObservationResponse getBiometricRequest(String patientId, String observationCode, String count) {
+        return read(this.historyBundle);
+    }
+    
+    @Override
+    public ObservationResponse getLatestBiometricRequest(String patientId, String observationCode) {
+        return read(this.latestBundle);
+    }
+    
+    @Override
+    public List<ObservationResponse> getBiometricBatchRequest(List<String> patientIds, String observationCode, String count) {
+        List<ObservationResponse> responses = new ArrayList();
+        for (String patientId : patientIds) {
+            responses.add(read(this.latestBundle));
+        }
+        return responses;
+    }
+    
+    /**
+     * Deserialises a recorded bundle the way RequestHandler reads a response body.
+     * @param json String - JSON of the bundle.
+     * @return ObservationResponse
+     */
+    private ObservationResponse read(String json) {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        try {
+            return getGson().fromJson(reader, ObservationResponse.class);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException ex) {
+                throw new WebServiceException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import model.Biometric;
+import model.ObservationCodes;
+import model.ObservationName;
+import model.ObserveStorage;
+import monitor_tasks.BloodMonitorTasks;
+import monitor_tasks.MonitorTasks;
+import monitor_tasks.RefreshEngine;
+import monitor_tasks.RefreshMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TickBenchmark measures a full monitor update tick: fetching the latest observation of every monitored patient through the refresh engine,
+ * deserialising the responses, and updating each biometric, its statistics and its history.
+ * Requests are answered by a StubRequestHandler, so the network is left out. Blood pressure monitors are used without blood thresholds,
+ * so the tick does not touch the view, which needs a display.
+ * @author Bryan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TickBenchmark {
+    @Param({"100", "1000"})
+    public int patients;
+    @Param({"PARALLEL", "BATCHED"})
+    public RefreshMode refreshMode;
+    private RefreshEngine refreshEngine;
+    private BloodMonitorTasks tasks;
+    
+    @Setup
+    public void setUp() {
+        String code = new ObservationCodes().getCode(ObservationName.BLOOD.name());
+        ObserveStorage storage = new ObserveStorage();
+        for (int i = 0; i < this.patients; i++) {
+            String patientId = Fixtures.patientId(i);
+            storage.storeBloodBiometric(code + "," + patientId, new Biometric(code, patientId, "Given" + i, "Family" + i));
+        }
+        this.refreshEngine = new RefreshEngine();
+        this.refreshEngine.setRefreshMode(this.refreshMode);
+        this.tasks = new BloodMonitorTasks(storage, null, this.refreshEngine, new StubRequestHandler(Fixtures.OBSERVATION_BLOOD, MonitorTasks.BACKFILL_PAGE_SIZE));
+        // Fill in every history first, so measured ticks are steady-state updates rather than first updates
+        this.tasks.updateMonitors();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        this.refreshEngine.shutdown();
+    }
+    
+    @Benchmark
+    public void tick() {
+        this.tasks.updateMonitors();
+    }
+}